@@ -3,12 +3,14 @@ package com.gk.rpc;
 import com.gk.rpc.constants.ConfigurationKeys;
 import com.gk.rpc.netty.NettyRemotingServer;
 import com.gk.rpc.netty.NettyServerConfig;
+import com.gk.rpc.netty.VirtualThreadExecutor;
 import com.gk.rpc.session.SessionHolder;
 import com.gk.rpc.utils.PortHelper;
 import io.seata.XID;
 import io.seata.thread.NamedThreadFactory;
 import io.seata.utils.NetUtil;
 
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -25,10 +27,19 @@ public class App
         System.setProperty(ConfigurationKeys.SERVER_PORT, Integer.toString(port));
 
 
-        ThreadPoolExecutor workingThreads = new ThreadPoolExecutor(NettyServerConfig.getMinServerPoolSize(),
+        ExecutorService workingThreads;
+        if (NettyServerConfig.isVirtualThreadsEnabled() && VirtualThreadExecutor.isAvailable()) {
+            workingThreads = new VirtualThreadExecutor("ServerHandlerVirtual",
+                NettyServerConfig.getVirtualThreadsMaxConcurrency(), NettyServerConfig.getMaxTaskQueueSize());
+        } else {
+            if (NettyServerConfig.isVirtualThreadsEnabled()) {
+                VirtualThreadExecutor.logFallback();
+            }
+            workingThreads = new ThreadPoolExecutor(NettyServerConfig.getMinServerPoolSize(),
                 NettyServerConfig.getMaxServerPoolSize(), NettyServerConfig.getKeepAliveTime(), TimeUnit.SECONDS,
                 new LinkedBlockingQueue<>(NettyServerConfig.getMaxTaskQueueSize()),
-                new NamedThreadFactory("ServerHandlerThread", NettyServerConfig.getMaxServerPoolSize()), new ThreadPoolExecutor.CallerRunsPolicy());
+                new NamedThreadFactory("ServerHandlerThread", NettyServerConfig.getMaxServerPoolSize()));
+        }
 
         ParameterParser parameterParser = new ParameterParser(args);
 
@@ -15,6 +15,9 @@
  */
 package com.gk.rpc.compressor;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
 /**
  * @author jsbxyyx
  */
@@ -27,6 +30,21 @@ public interface Compressor {
      */
     byte[] compress(byte[] bytes);
 
+    /**
+     * compress the readable bytes of a ByteBuf into another ByteBuf.
+     * <p>
+     * The default implementation copies the readable bytes into a byte[] and delegates to
+     * {@link #compress(byte[])}. All readable bytes of {@code in} are consumed.
+     *
+     * @param in  the ByteBuf to compress
+     * @param out the ByteBuf to write to
+     */
+    default void compress(ByteBuf in, ByteBuf out) {
+        byte[] bytes = new byte[in.readableBytes()];
+        in.readBytes(bytes);
+        out.writeBytes(compress(bytes));
+    }
+
     /**
      * decompress byte[] to byte[].
      * @param bytes the bytes
@@ -34,4 +52,20 @@ public interface Compressor {
      */
     byte[] decompress(byte[] bytes);
 
+    /**
+     * decompress the readable bytes of a ByteBuf.
+     * <p>
+     * The default implementation copies the readable bytes into a byte[] and delegates to
+     * {@link #decompress(byte[])}. All readable bytes of {@code in} are consumed, the caller keeps
+     * the ownership of {@code in} and must release the returned ByteBuf.
+     *
+     * @param in the ByteBuf
+     * @return the decompressed ByteBuf
+     */
+    default ByteBuf decompress(ByteBuf in) {
+        byte[] bytes = new byte[in.readableBytes()];
+        in.readBytes(bytes);
+        return Unpooled.wrappedBuffer(decompress(bytes));
+    }
+
 }
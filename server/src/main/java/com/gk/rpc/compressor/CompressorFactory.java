@@ -15,26 +15,51 @@
  */
 package com.gk.rpc.compressor;
 
+import io.netty.buffer.ByteBuf;
 import io.seata.loader.EnhancedServiceLoader;
+import io.seata.loader.EnhancedServiceNotFoundException;
 import io.seata.loader.LoadLevel;
-import io.seata.utils.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * the type compressor factory
+ * <p>
+ * Compressors are resolved once into a table indexed by the compressor byte of the protocol
+ * header, so looking one up on the hot path is a single array load.
+ *
  * @author jsbxyyx
  */
 public class CompressorFactory {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompressorFactory.class);
+
+    private static final int TABLE_SIZE = 256;
+
     /**
-     * The constant COMPRESSOR_MAP.
+     * The compressor table, indexed by unsigned compressor byte.
      */
-    protected static final Map<CompressorType, Compressor> COMPRESSOR_MAP = new ConcurrentHashMap<>();
+    protected static final AtomicReferenceArray<Compressor> COMPRESSORS = new AtomicReferenceArray<>(TABLE_SIZE);
+
+    private static final LongAdder LOOKUPS = new LongAdder();
+
+    private static final LongAdder SLOW_LOOKUPS = new LongAdder();
 
     static {
-        COMPRESSOR_MAP.put(CompressorType.NONE, new NoneCompressor());
+        COMPRESSORS.set(indexOf(CompressorType.NONE.getCode()), new NoneCompressor());
+        for (CompressorType type : CompressorType.values()) {
+            if (type == CompressorType.NONE) {
+                continue;
+            }
+            try {
+                COMPRESSORS.set(indexOf(type.getCode()), EnhancedServiceLoader.load(Compressor.class, type.name()));
+            } catch (EnhancedServiceNotFoundException e) {
+                LOGGER.debug("compressor {} is not available at startup", type.name());
+            }
+        }
     }
 
     /**
@@ -44,9 +69,56 @@ public class CompressorFactory {
      * @return the compressor
      */
     public static Compressor getCompressor(byte code) {
-        CompressorType type = CompressorType.getByCode(code);
-        return CollectionUtils.computeIfAbsent(COMPRESSOR_MAP, type,
-            key -> EnhancedServiceLoader.load(Compressor.class, type.name()));
+        LOOKUPS.increment();
+        Compressor compressor = COMPRESSORS.get(indexOf(code));
+        if (compressor == null) {
+            compressor = loadCompressor(code);
+        }
+        return compressor;
+    }
+
+    /**
+     * Register a compressor at runtime, replacing any compressor registered with the same code.
+     *
+     * @param code       the code
+     * @param compressor the compressor
+     */
+    public static void registerCompressor(byte code, Compressor compressor) {
+        if (compressor == null) {
+            throw new IllegalArgumentException("Compressor registered cannot be null!");
+        }
+        COMPRESSORS.set(indexOf(code), compressor);
+    }
+
+    /**
+     * Gets the number of compressor lookups.
+     *
+     * @return the lookup count
+     */
+    public static long getLookupCount() {
+        return LOOKUPS.sum();
+    }
+
+    /**
+     * Gets the number of lookups which missed the table and went through the service loader.
+     *
+     * @return the slow lookup count
+     */
+    public static long getSlowLookupCount() {
+        return SLOW_LOOKUPS.sum();
+    }
+
+    private static Compressor loadCompressor(byte code) {
+        SLOW_LOOKUPS.increment();
+        Compressor compressor = EnhancedServiceLoader.load(Compressor.class, CompressorType.getByCode(code).name());
+        if (COMPRESSORS.compareAndSet(indexOf(code), null, compressor)) {
+            return compressor;
+        }
+        return COMPRESSORS.get(indexOf(code));
+    }
+
+    private static int indexOf(byte code) {
+        return code & 0xFF;
     }
 
     /**
@@ -63,6 +135,17 @@ public class CompressorFactory {
         public byte[] decompress(byte[] bytes) {
             return bytes;
         }
+
+        @Override
+        public void compress(ByteBuf in, ByteBuf out) {
+            out.writeBytes(in);
+        }
+
+        @Override
+        public ByteBuf decompress(ByteBuf in) {
+            // zero-copy: share the content of the frame
+            return in.readRetainedSlice(in.readableBytes());
+        }
     }
 
 }
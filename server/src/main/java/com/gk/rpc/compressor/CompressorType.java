@@ -53,7 +53,17 @@ public enum CompressorType {
     /**
      * The deflater.
      */
-    DEFLATER((byte) 6);
+    DEFLATER((byte) 6),
+
+    /**
+     * The zstd.
+     */
+    ZSTD((byte) 7),
+
+    /**
+     * The zstd with a shared dictionary.
+     */
+    ZSTD_DICT((byte) 8);
 
     private final byte code;
 
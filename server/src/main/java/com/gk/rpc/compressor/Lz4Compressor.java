@@ -0,0 +1,113 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.compressor;
+
+import io.netty.buffer.ByteBuf;
+import io.seata.loader.LoadLevel;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * the LZ4 compressor
+ * <p>
+ * The compressed form is the uncompressed length (4B) followed by a raw LZ4 block.
+ */
+@LoadLevel(name = "LZ4")
+public class Lz4Compressor implements Compressor {
+
+    private static final int LENGTH_FIELD_SIZE = 4;
+
+    private static final LZ4Factory FACTORY = LZ4Factory.fastestInstance();
+
+    private final LZ4Compressor compressor = FACTORY.fastCompressor();
+
+    private final LZ4FastDecompressor decompressor = FACTORY.fastDecompressor();
+
+    @Override
+    public byte[] compress(byte[] bytes) {
+        int maxLength = compressor.maxCompressedLength(bytes.length);
+        byte[] out = new byte[LENGTH_FIELD_SIZE + maxLength];
+        writeInt(out, bytes.length);
+        int length = compressor.compress(bytes, 0, bytes.length, out, LENGTH_FIELD_SIZE, maxLength);
+        return Arrays.copyOf(out, LENGTH_FIELD_SIZE + length);
+    }
+
+    @Override
+    public byte[] decompress(byte[] bytes) {
+        byte[] out = new byte[checkLength(readInt(bytes))];
+        decompressor.decompress(bytes, LENGTH_FIELD_SIZE, out, 0, out.length);
+        return out;
+    }
+
+    @Override
+    public void compress(ByteBuf in, ByteBuf out) {
+        int length = in.readableBytes();
+        int maxLength = compressor.maxCompressedLength(length);
+        out.ensureWritable(LENGTH_FIELD_SIZE + maxLength);
+        if (in.nioBufferCount() != 1 || out.nioBufferCount() != 1) {
+            Compressor.super.compress(in, out);
+            return;
+        }
+        out.writeInt(length);
+        ByteBuffer src = in.nioBuffer(in.readerIndex(), length);
+        ByteBuffer dest = out.nioBuffer(out.writerIndex(), maxLength);
+        int compressedLength = compressor.compress(src, src.position(), length, dest, dest.position(), maxLength);
+        in.skipBytes(length);
+        out.writerIndex(out.writerIndex() + compressedLength);
+    }
+
+    @Override
+    public ByteBuf decompress(ByteBuf in) {
+        if (in.nioBufferCount() != 1) {
+            return Compressor.super.decompress(in);
+        }
+        int length = checkLength(in.readInt());
+        ByteBuf out = in.alloc().ioBuffer(length);
+        try {
+            ByteBuffer src = in.nioBuffer(in.readerIndex(), in.readableBytes());
+            ByteBuffer dest = out.nioBuffer(0, length);
+            int read = decompressor.decompress(src, src.position(), dest, dest.position(), length);
+            in.skipBytes(read);
+            out.writerIndex(length);
+            return out;
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        }
+    }
+
+    private static int checkLength(int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("invalid lz4 block, decompressed length: " + length);
+        }
+        return length;
+    }
+
+    private static void writeInt(byte[] bytes, int value) {
+        bytes[0] = (byte) (value >>> 24);
+        bytes[1] = (byte) (value >>> 16);
+        bytes[2] = (byte) (value >>> 8);
+        bytes[3] = (byte) value;
+    }
+
+    private static int readInt(byte[] bytes) {
+        return (bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | bytes[3] & 0xFF;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.compressor;
+
+import com.github.luben.zstd.Zstd;
+import io.seata.loader.LoadLevel;
+
+/**
+ * the Zstd compressor
+ * <p>
+ * The compressed form is a standard zstd frame, which records the uncompressed size itself.
+ */
+@LoadLevel(name = "ZSTD")
+public class ZstdCompressor implements Compressor {
+
+    /**
+     * zstd default level, a good balance between ratio and speed for small frames
+     */
+    private static final int COMPRESSION_LEVEL = 3;
+
+    @Override
+    public byte[] compress(byte[] bytes) {
+        return Zstd.compress(bytes, COMPRESSION_LEVEL);
+    }
+
+    @Override
+    public byte[] decompress(byte[] bytes) {
+        long size = Zstd.decompressedSize(bytes);
+        if (size < 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("invalid zstd frame, decompressed size: " + size);
+        }
+        return Zstd.decompress(bytes, (int) size);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.compressor;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import io.seata.loader.LoadLevel;
+
+/**
+ * the Zstd compressor with a shared dictionary, meant for the many small transaction messages.
+ * <p>
+ * Each zstd frame records the id of the dictionary it was compressed with, so frames compressed
+ * before a dictionary was active (id 0) still decompress without one. The encoder only picks this
+ * compressor for channels whose peer confirmed the active dictionary, plain zstd otherwise.
+ *
+ * @see ZstdDictionaryHolder
+ */
+@LoadLevel(name = "ZSTD_DICT")
+public class ZstdDictCompressor implements Compressor {
+
+    private static final int COMPRESSION_LEVEL = 3;
+
+    private final ZstdDictionaryHolder holder = ZstdDictionaryHolder.getInstance();
+
+    @Override
+    public byte[] compress(byte[] bytes) {
+        ZstdDictCompress dict = holder.getCompressDict();
+        if (dict == null) {
+            holder.offerSample(bytes);
+            return Zstd.compress(bytes, COMPRESSION_LEVEL);
+        }
+        return Zstd.compress(bytes, dict);
+    }
+
+    @Override
+    public byte[] decompress(byte[] bytes) {
+        long size = Zstd.decompressedSize(bytes);
+        if (size < 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("invalid zstd frame, decompressed size: " + size);
+        }
+        long id = Zstd.getDictIdFromFrame(bytes);
+        if (id == 0) {
+            return Zstd.decompress(bytes, (int) size);
+        }
+        ZstdDictDecompress dict = holder.getDecompressDict(id);
+        if (dict == null) {
+            throw new IllegalArgumentException("unknown zstd dictionary: " + id);
+        }
+        return Zstd.decompress(bytes, dict, (int) size);
+    }
+}
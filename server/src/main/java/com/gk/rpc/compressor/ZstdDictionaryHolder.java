@@ -0,0 +1,225 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.compressor;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.gk.rpc.constants.ConfigurationKeys;
+import io.seata.StringUtils;
+import io.seata.core.Configuration;
+import io.seata.core.ConfigurationFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.seata.thread.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the zstd dictionary used by {@link ZstdDictCompressor}.
+ * <p>
+ * The dictionary is loaded from {@code transport.zstdDict.path} at startup. When no dictionary file
+ * exists and {@code transport.zstdDict.trainSamples} is positive, the first small bodies are
+ * collected as samples and a dictionary is trained once in the background, then saved to the
+ * configured path so it can be shipped to clients. The active dictionary id is advertised to
+ * clients during registration; a client must only send dictionary compressed frames when it owns
+ * the dictionary with that id. The other way round, a channel only gets dictionary compressed
+ * frames once its register request confirmed the active id, see {@link #isConfirmed(Channel)}.
+ */
+public final class ZstdDictionaryHolder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZstdDictionaryHolder.class);
+
+    private static final Configuration CONFIG = ConfigurationFactory.getInstance();
+
+    private static final int DEFAULT_DICT_SIZE = 16 * 1024;
+
+    private static final int MAX_SAMPLE_SIZE = 4 * 1024;
+
+    private static final int COMPRESSION_LEVEL = 3;
+
+    private static final ZstdDictionaryHolder INSTANCE = new ZstdDictionaryHolder();
+
+    /**
+     * The dictionary id the peer of a channel confirmed to own in its register request.
+     */
+    public static final AttributeKey<Long> CONFIRMED_DICT_ID = AttributeKey.valueOf("zstdConfirmedDictId");
+
+    private final String dictPath = CONFIG.getConfig(ConfigurationKeys.ZSTD_DICT_PATH);
+
+    private final int trainSamples = CONFIG.getInt(ConfigurationKeys.ZSTD_DICT_TRAIN_SAMPLES, 0);
+
+    private final int dictSize = CONFIG.getInt(ConfigurationKeys.ZSTD_DICT_SIZE, DEFAULT_DICT_SIZE);
+
+    private final Map<Long, ZstdDictDecompress> decompressDicts = new ConcurrentHashMap<>();
+
+    private final Queue<byte[]> samples = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger sampleCount = new AtomicInteger();
+
+    private final AtomicBoolean training = new AtomicBoolean(false);
+
+    private volatile ZstdDictCompress compressDict;
+
+    private volatile long dictId;
+
+    private ZstdDictionaryHolder() {
+        if (StringUtils.isNotBlank(dictPath)) {
+            Path path = Paths.get(dictPath);
+            if (Files.exists(path)) {
+                try {
+                    activate(Files.readAllBytes(path));
+                } catch (IOException e) {
+                    LOGGER.error("load zstd dictionary from {} error: {}", dictPath, e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    public static ZstdDictionaryHolder getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the id of the active dictionary, 0 when there is none.
+     *
+     * @return the dictionary id
+     */
+    public long getDictId() {
+        return dictId;
+    }
+
+    /**
+     * Gets the active compress dictionary.
+     *
+     * @return the dictionary, null when there is none
+     */
+    public ZstdDictCompress getCompressDict() {
+        return compressDict;
+    }
+
+    /**
+     * Gets a decompress dictionary by id.
+     *
+     * @param id the dictionary id
+     * @return the dictionary, null when unknown
+     */
+    public ZstdDictDecompress getDecompressDict(long id) {
+        return decompressDicts.get(id);
+    }
+
+    /**
+     * Record the dictionary id the peer of a channel confirmed to own.
+     *
+     * @param channel the channel
+     * @param id      the dictionary id from the register request
+     */
+    public void confirm(Channel channel, long id) {
+        channel.attr(CONFIRMED_DICT_ID).set(id);
+    }
+
+    /**
+     * Whether frames to a channel may be compressed with the active dictionary, only when its peer
+     * confirmed to own the dictionary with the active id.
+     *
+     * @param channel the channel
+     * @return true if the peer can decompress dictionary frames
+     */
+    public boolean isConfirmed(Channel channel) {
+        long id = dictId;
+        Long confirmed = channel.attr(CONFIRMED_DICT_ID).get();
+        return id != 0 && confirmed != null && confirmed == id;
+    }
+
+    /**
+     * Offer a body as training sample, ignored once a dictionary is active or enough samples are collected.
+     *
+     * @param bytes the body
+     */
+    public void offerSample(byte[] bytes) {
+        if (!wantsSamples() || bytes.length > MAX_SAMPLE_SIZE) {
+            return;
+        }
+        int count = sampleCount.incrementAndGet();
+        if (count <= trainSamples) {
+            samples.offer(bytes);
+        }
+        if (count == trainSamples && training.compareAndSet(false, true)) {
+            new NamedThreadFactory("zstdDictTrainer", 1, true).newThread(this::train).start();
+        }
+    }
+
+    /**
+     * Offer the readable bytes of a body as training sample, copied only while samples are collected.
+     *
+     * @param body the body, its reader index is not moved
+     */
+    public void offerSample(ByteBuf body) {
+        if (!wantsSamples() || body.readableBytes() > MAX_SAMPLE_SIZE) {
+            return;
+        }
+        byte[] bytes = new byte[body.readableBytes()];
+        body.getBytes(body.readerIndex(), bytes);
+        offerSample(bytes);
+    }
+
+    private boolean wantsSamples() {
+        return trainSamples > 0 && compressDict == null && sampleCount.get() < trainSamples;
+    }
+
+    private void train() {
+        try {
+            int totalSize = 0;
+            for (byte[] sample : samples) {
+                totalSize += sample.length;
+            }
+            ZstdDictTrainer trainer = new ZstdDictTrainer(totalSize, dictSize);
+            for (byte[] sample : samples) {
+                trainer.addSample(sample);
+            }
+            byte[] dict = trainer.trainSamples();
+            if (StringUtils.isNotBlank(dictPath)) {
+                Files.write(Paths.get(dictPath), dict);
+            }
+            activate(dict);
+        } catch (Throwable t) {
+            LOGGER.error("train zstd dictionary error: {}", t.getMessage(), t);
+        } finally {
+            samples.clear();
+        }
+    }
+
+    private void activate(byte[] dict) {
+        long id = Zstd.getDictIdFromDict(dict);
+        decompressDicts.put(id, new ZstdDictDecompress(dict));
+        compressDict = new ZstdDictCompress(dict, COMPRESSION_LEVEL);
+        dictId = id;
+        LOGGER.info("zstd dictionary activated, id: {}, size: {}", id, dict.length);
+    }
+}
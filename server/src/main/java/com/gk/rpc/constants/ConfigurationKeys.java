@@ -194,6 +194,46 @@ public interface ConfigurationKeys {
      */
     String COMPRESSOR_FOR_RPC = TRANSPORT_PREFIX + "compressor";
 
+    /**
+     * The constant COMPRESS_THRESHOLD_FOR_RPC, bodies smaller than it are sent uncompressed.
+     */
+    String COMPRESS_THRESHOLD_FOR_RPC = TRANSPORT_PREFIX + "compressThreshold";
+
+    /**
+     * The constant ZSTD_DICT_PREFIX.
+     */
+    String ZSTD_DICT_PREFIX = TRANSPORT_PREFIX + "zstdDict.";
+
+    /**
+     * The constant ZSTD_DICT_PATH, the dictionary file to load, or to save a trained dictionary to.
+     */
+    String ZSTD_DICT_PATH = ZSTD_DICT_PREFIX + "path";
+
+    /**
+     * The constant ZSTD_DICT_TRAIN_SAMPLES, 0 disables training.
+     */
+    String ZSTD_DICT_TRAIN_SAMPLES = ZSTD_DICT_PREFIX + "trainSamples";
+
+    /**
+     * The constant ZSTD_DICT_SIZE, the max size in bytes of a trained dictionary.
+     */
+    String ZSTD_DICT_SIZE = ZSTD_DICT_PREFIX + "size";
+
+    /**
+     * The constant ENABLE_HEAD_MAP_COMPACT, whether clients may negotiate the compact head map encoding.
+     */
+    String ENABLE_HEAD_MAP_COMPACT = TRANSPORT_PREFIX + "enableHeadMapCompact";
+
+    /**
+     * The constant DECODE_OFFLOAD_THRESHOLD, bodies from this size on are decoded off the IO thread, 0 disables.
+     */
+    String DECODE_OFFLOAD_THRESHOLD = TRANSPORT_PREFIX + "decodeOffloadThreshold";
+
+    /**
+     * The constant V2_FRAME_BATCH_BYTES, max bytes of messages packed into one protocol v2 frame.
+     */
+    String V2_FRAME_BATCH_BYTES = TRANSPORT_PREFIX + "v2FrameBatchBytes";
+
     /**
      * The constant STORE_DB_PREFIX.
      */
@@ -425,6 +465,11 @@ public interface ConfigurationKeys {
      */
     String KEEP_ALIVE_TIME = TRANSPORT_PREFIX + "keepAliveTime";
 
+    /**
+     * The constant RPC_TIMEOUT_TICK_MILLIS.
+     */
+    String RPC_TIMEOUT_TICK_MILLIS = TRANSPORT_PREFIX + "rpcTimeoutTickMillis";
+
     /**
      * The constant TRANSPORT_TYPE
      */
@@ -485,6 +530,141 @@ public interface ConfigurationKeys {
      */
     String BOSS_THREAD_SIZE = THREAD_FACTORY_PREFIX + "bossThreadSize";
 
+    /**
+     * The constant WRITE_COALESCING_PREFIX
+     */
+    String WRITE_COALESCING_PREFIX = TRANSPORT_PREFIX + "writeCoalescing.";
+
+    /**
+     * The constant WRITE_COALESCING_ENABLE
+     */
+    String WRITE_COALESCING_ENABLE = WRITE_COALESCING_PREFIX + "enable";
+
+    /**
+     * The constant WRITE_COALESCING_WINDOW_MICROS, 0 flushes at the end of the event loop tick
+     */
+    String WRITE_COALESCING_WINDOW_MICROS = WRITE_COALESCING_PREFIX + "windowMicros";
+
+    /**
+     * The constant DEDICATED_EXECUTOR_PREFIX, followed by a message type code, the thread count of its own pool
+     */
+    String DEDICATED_EXECUTOR_PREFIX = TRANSPORT_PREFIX + "dedicatedExecutor.";
+
+    /**
+     * The constant IDLE_TRACKER_PREFIX
+     */
+    String IDLE_TRACKER_PREFIX = TRANSPORT_PREFIX + "idleTracker.";
+
+    /**
+     * The constant IDLE_TRACKER_ENABLE, detect read idle channels with one shared wheel
+     */
+    String IDLE_TRACKER_ENABLE = IDLE_TRACKER_PREFIX + "enable";
+
+    /**
+     * The constant IDLE_TRACKER_BUCKETS
+     */
+    String IDLE_TRACKER_BUCKETS = IDLE_TRACKER_PREFIX + "buckets";
+
+    /**
+     * The constant IDLE_TRACKER_CLOSE_BATCH_SIZE, the most idle channels closed per tick
+     */
+    String IDLE_TRACKER_CLOSE_BATCH_SIZE = IDLE_TRACKER_PREFIX + "closeBatchSize";
+
+    /**
+     * The constant HEARTBEAT_FAST_PATH, answer heartbeats in the frame decoder
+     */
+    String HEARTBEAT_FAST_PATH = TRANSPORT_PREFIX + "heartbeatFastPath";
+
+    /**
+     * The constant ADMISSION_PREFIX
+     */
+    String ADMISSION_PREFIX = TRANSPORT_PREFIX + "admission.";
+
+    /**
+     * The constant ADMISSION_ENABLE, reject new global transactions while the server is overloaded
+     */
+    String ADMISSION_ENABLE = ADMISSION_PREFIX + "enable";
+
+    /**
+     * The constant ADMISSION_TARGET_QUEUE_WAIT_MILLIS
+     */
+    String ADMISSION_TARGET_QUEUE_WAIT_MILLIS = ADMISSION_PREFIX + "targetQueueWaitMillis";
+
+    /**
+     * The constant ADMISSION_TARGET_LATENCY_MILLIS, the target processing latency of global begin
+     */
+    String ADMISSION_TARGET_LATENCY_MILLIS = ADMISSION_PREFIX + "targetLatencyMillis";
+
+    /**
+     * The constant ADMISSION_INTERVAL_MILLIS
+     */
+    String ADMISSION_INTERVAL_MILLIS = ADMISSION_PREFIX + "intervalMillis";
+
+    /**
+     * The constant BATCH_LOG_BUFFER_SIZE, events buffered for the request log printer
+     */
+    String BATCH_LOG_BUFFER_SIZE = TRANSPORT_PREFIX + "batchLogBufferSize";
+
+    /**
+     * The constant RESPONSE_BATCH_PREFIX
+     */
+    String RESPONSE_BATCH_PREFIX = TRANSPORT_PREFIX + "responseBatch.";
+
+    /**
+     * The constant RESPONSE_BATCH_ENABLE, whether clients may negotiate batched responses
+     */
+    String RESPONSE_BATCH_ENABLE = RESPONSE_BATCH_PREFIX + "enable";
+
+    /**
+     * The constant RESPONSE_BATCH_WINDOW_MICROS
+     */
+    String RESPONSE_BATCH_WINDOW_MICROS = RESPONSE_BATCH_PREFIX + "windowMicros";
+
+    /**
+     * The constant RESPONSE_BATCH_MAX_SIZE
+     */
+    String RESPONSE_BATCH_MAX_SIZE = RESPONSE_BATCH_PREFIX + "maxSize";
+
+    /**
+     * The constant VIRTUAL_THREADS_PREFIX
+     */
+    String VIRTUAL_THREADS_PREFIX = TRANSPORT_PREFIX + "virtualThreads.";
+
+    /**
+     * The constant VIRTUAL_THREADS_ENABLE, run processor tasks on virtual threads, JDK 21 or later
+     */
+    String VIRTUAL_THREADS_ENABLE = VIRTUAL_THREADS_PREFIX + "enable";
+
+    /**
+     * The constant VIRTUAL_THREADS_MAX_CONCURRENCY
+     */
+    String VIRTUAL_THREADS_MAX_CONCURRENCY = VIRTUAL_THREADS_PREFIX + "maxConcurrency";
+
+    /**
+     * The constant OUTBOUND_QUEUE_PREFIX
+     */
+    String OUTBOUND_QUEUE_PREFIX = TRANSPORT_PREFIX + "outboundQueue.";
+
+    /**
+     * The constant OUTBOUND_QUEUE_MAX_BYTES, estimated bytes queued per channel while it is not writable
+     */
+    String OUTBOUND_QUEUE_MAX_BYTES = OUTBOUND_QUEUE_PREFIX + "maxBytes";
+
+    /**
+     * The constant OUTBOUND_QUEUE_POLICY, one of BLOCK, FAIL_FAST, SHED
+     */
+    String OUTBOUND_QUEUE_POLICY = OUTBOUND_QUEUE_PREFIX + "policy";
+
+    /**
+     * The constant OUTBOUND_QUEUE_BLOCK_TIMEOUT_MILLIS
+     */
+    String OUTBOUND_QUEUE_BLOCK_TIMEOUT_MILLIS = OUTBOUND_QUEUE_PREFIX + "blockTimeoutMillis";
+
+    /**
+     * The constant SERVER_ACCEPTOR_COUNT, listening sockets bound with SO_REUSEPORT, epoll only
+     */
+    String SERVER_ACCEPTOR_COUNT = TRANSPORT_PREFIX + "serverAcceptorCount";
+
     /**
      * The constant WORKER_THREAD_SIZE
      */
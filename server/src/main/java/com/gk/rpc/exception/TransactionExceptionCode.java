@@ -115,7 +115,12 @@ public enum TransactionExceptionCode {
     /**
      * Failed to store exception code
      */
-    FailedStore
+    FailedStore,
+
+    /**
+     * Rejected by admission control while the server is overloaded, the client may retry later
+     */
+    TooManyRequests
     ;
 
 
@@ -17,15 +17,17 @@ package com.gk.rpc.netty;
 
 import com.gk.rpc.handler.Disposable;
 import com.gk.rpc.hook.RpcHook;
-import com.gk.rpc.processor.Pair;
-import com.gk.rpc.processor.RemotingProcessor;
+import com.gk.rpc.netty.v1.LazyBody;
 import com.gk.rpc.protocol.MessageFuture;
+import com.gk.rpc.protocol.MessageFutureTable;
 import com.gk.rpc.protocol.MessageTypeAware;
 import com.gk.rpc.protocol.ProtocolConstants;
 import com.gk.rpc.protocol.RpcMessage;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.HashedWheelTimer;
 import io.seata.exception.FrameworkErrorCode;
 import io.seata.exception.FrameworkException;
 import io.seata.loader.EnhancedServiceLoader;
@@ -35,13 +37,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
-import java.io.IOException;
-import java.lang.management.ManagementFactory;
 import java.net.SocketAddress;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
 import java.util.concurrent.*;
 
 /**
@@ -54,14 +51,20 @@ public abstract class AbstractNettyRemoting implements Disposable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractNettyRemoting.class);
     /**
-     * The Timer executor.
+     * The timer expiring requests which got no response, one timeout per request.
      */
-    protected final ScheduledExecutorService timerExecutor = new ScheduledThreadPoolExecutor(1,
-        new NamedThreadFactory("timeoutChecker", 1, true));
+    protected final HashedWheelTimer timeoutTimer = new HashedWheelTimer(
+        new NamedThreadFactory("timeoutChecker", 1, true), NettyServerConfig.getRpcTimeoutTickMillis(),
+        TimeUnit.MILLISECONDS, TIMEOUT_WHEEL_SIZE);
     /**
      * The Message executor.
      */
-    protected final ThreadPoolExecutor messageExecutor;
+    protected final ExecutorService messageExecutor;
+
+    /**
+     * Runs the always admitted messages which a full executor rejected, keeping them off the I/O thread.
+     */
+    protected final ThreadPoolExecutor reservedExecutor;
 
     /**
      * Id generator of this remoting
@@ -73,16 +76,11 @@ public abstract class AbstractNettyRemoting implements Disposable {
      *
      * @see AbstractNettyRemoting#sendSync
      */
-    protected final ConcurrentHashMap<Integer, MessageFuture> futures = new ConcurrentHashMap<>();
-
-    private static final long NOT_WRITEABLE_CHECK_MILLS = 10L;
+    protected final MessageFutureTable futures = new MessageFutureTable();
 
-    /**
-     * The Now mills.
-     */
-    protected volatile long nowMills = 0;
-    private static final int TIMEOUT_CHECK_INTERNAL = 3000;
-    protected final Object lock = new Object();
+    private static final int TIMEOUT_WHEEL_SIZE = 512;
+    private static final int RESERVED_THREADS = 2;
+    private static final int RESERVED_QUEUE_SIZE = 1024;
     /**
      * The Is sending.
      */
@@ -90,43 +88,42 @@ public abstract class AbstractNettyRemoting implements Disposable {
     private String group = "DEFAULT";
 
     /**
-     * This container holds all processors.
+     * This container holds all processors, indexed by message type.
      */
-    protected final HashMap<Integer/*MessageType*/, Pair<RemotingProcessor, ExecutorService>> processorTable = new HashMap<>(32);
+    protected final ProcessorTable processorTable = new ProcessorTable();
+
+    /**
+     * Tracks the queue wait and latency of the processed messages, deciding what is shed under overload.
+     */
+    protected final AdmissionController admissionController = new AdmissionController();
 
     protected final List<RpcHook> rpcHooks = EnhancedServiceLoader.loadAll(RpcHook.class);
 
     public void init() {
-        timerExecutor.scheduleAtFixedRate(new Runnable() {
-            @Override
-            public void run() {
-                for (Map.Entry<Integer, MessageFuture> entry : futures.entrySet()) {
-                    if (entry.getValue().isTimeout()) {
-                        futures.remove(entry.getKey());
-                        entry.getValue().setResultMessage(null);
-                        if (LOGGER.isDebugEnabled()) {
-                            LOGGER.debug("timeout clear future: {}", entry.getValue().getRequestMessage().getBody());
-                        }
-                    }
-                }
-
-                nowMills = System.currentTimeMillis();
-            }
-        }, TIMEOUT_CHECK_INTERNAL, TIMEOUT_CHECK_INTERNAL, TimeUnit.MILLISECONDS);
+        processorTable.freeze();
+        timeoutTimer.start();
     }
 
-    public AbstractNettyRemoting(ThreadPoolExecutor messageExecutor) {
+    public AbstractNettyRemoting(ExecutorService messageExecutor) {
         this.messageExecutor = messageExecutor;
+        this.reservedExecutor = new ThreadPoolExecutor(RESERVED_THREADS, RESERVED_THREADS,
+            NettyServerConfig.getKeepAliveTime(), TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(RESERVED_QUEUE_SIZE),
+            new NamedThreadFactory("ServerReservedHandleThread", RESERVED_THREADS));
+        this.reservedExecutor.allowCoreThreadTimeOut(true);
     }
 
     public int getNextMessageId() {
         return idGenerator.incrementAndGet();
     }
 
-    public ConcurrentHashMap<Integer, MessageFuture> getFutures() {
+    public MessageFutureTable getFutures() {
         return futures;
     }
 
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
     public String getGroup() {
         return group;
     }
@@ -141,8 +138,11 @@ public abstract class AbstractNettyRemoting implements Disposable {
 
     @Override
     public void destroy() {
-        timerExecutor.shutdown();
+        timeoutTimer.stop();
+        // the stopped timer will never expire them, so fail whoever still waits for a response
+        futures.drain(future -> future.setResultMessage(new FrameworkException("remoting destroyed")));
         messageExecutor.shutdown();
+        reservedExecutor.shutdown();
     }
 
     /**
@@ -154,6 +154,8 @@ public abstract class AbstractNettyRemoting implements Disposable {
      * @param timeoutMillis rpc communication timeout
      * @return response message
      * @throws TimeoutException
+     * @throws FrameworkException if the outbound queue of the channel is full
+     * @see ChannelOutboundQueue
      */
     protected Object sendSync(Channel channel, RpcMessage rpcMessage, long timeoutMillis) throws TimeoutException {
         if (timeoutMillis <= 0) {
@@ -164,25 +166,10 @@ public abstract class AbstractNettyRemoting implements Disposable {
             return null;
         }
 
-        MessageFuture messageFuture = new MessageFuture();
-        messageFuture.setRequestMessage(rpcMessage);
-        messageFuture.setTimeout(timeoutMillis);
-        futures.put(rpcMessage.getId(), messageFuture);
-
-        channelWritableCheck(channel, rpcMessage.getBody());
-
         String remoteAddr = ChannelUtil.getAddressFromChannel(channel);
         doBeforeRpcHooks(remoteAddr, rpcMessage);
 
-        channel.writeAndFlush(rpcMessage).addListener((ChannelFutureListener) future -> {
-            if (!future.isSuccess()) {
-                MessageFuture messageFuture1 = futures.remove(rpcMessage.getId());
-                if (messageFuture1 != null) {
-                    messageFuture1.setResultMessage(future.cause());
-                }
-                destroyChannel(future.channel());
-            }
-        });
+        MessageFuture messageFuture = writeRequest(channel, rpcMessage, timeoutMillis);
 
         try {
             Object result = messageFuture.get(timeoutMillis, TimeUnit.MILLISECONDS);
@@ -192,21 +179,102 @@ public abstract class AbstractNettyRemoting implements Disposable {
             LOGGER.error("wait response error:{},ip:{},request:{}", exx.getMessage(), channel.remoteAddress(),
                 rpcMessage.getBody());
             if (exx instanceof TimeoutException) {
+                // the caller gave up, so the future goes now instead of on the next timer tick
+                futures.remove(rpcMessage.getId());
+                messageFuture.cancelTimeout();
                 throw (TimeoutException) exx;
+            } else if (exx instanceof FrameworkException) {
+                throw (FrameworkException) exx;
             } else {
                 throw new RuntimeException(exx);
             }
         }
     }
 
+    /**
+     * rpc request without blocking the caller.
+     * <p>
+     * The stage completes with the response, or exceptionally with a {@link TimeoutException} once
+     * timeoutMillis passes without one. The after hooks run before the stage completes, and both see
+     * the bare cause. Dependent actions run on the thread completing the stage, the response
+     * processor or the timeout timer, so heavy work should use the async variants.
+     *
+     * @param channel       netty channel
+     * @param rpcMessage    rpc message
+     * @param timeoutMillis rpc communication timeout
+     * @return the response stage
+     */
+    protected CompletionStage<Object> sendRequest(Channel channel, RpcMessage rpcMessage, long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            throw new FrameworkException("timeout should more than 0ms");
+        }
+        if (channel == null) {
+            CompletableFuture<Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new FrameworkException("client is not connected",
+                FrameworkErrorCode.getChannelError));
+            return failed;
+        }
+
+        String remoteAddr = ChannelUtil.getAddressFromChannel(channel);
+        doBeforeRpcHooks(remoteAddr, rpcMessage);
+
+        CompletableFuture<Object> response = new CompletableFuture<>();
+        writeRequest(channel, rpcMessage, timeoutMillis).toCompletionStage().whenComplete((result, cause) -> {
+            try {
+                doAfterRpcHooks(remoteAddr, rpcMessage, cause != null ? cause : result);
+            } finally {
+                if (cause != null) {
+                    response.completeExceptionally(cause);
+                } else {
+                    response.complete(result);
+                }
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Register the future of a request, schedule its timeout and write the request. A failed write
+     * completes the future with the cause.
+     */
+    private MessageFuture writeRequest(Channel channel, RpcMessage rpcMessage, long timeoutMillis) {
+        MessageFuture messageFuture = new MessageFuture();
+        messageFuture.setRequestMessage(rpcMessage);
+        messageFuture.setTimeout(timeoutMillis);
+        futures.put(rpcMessage.getId(), messageFuture);
+        messageFuture.setTimeoutHandle(timeoutTimer.newTimeout(
+            timeout -> expire(rpcMessage.getId(), timeoutMillis), timeoutMillis, TimeUnit.MILLISECONDS));
+
+        ChannelFuture writeFuture;
+        try {
+            writeFuture = ChannelOutboundQueue.of(channel).writeAndFlush(rpcMessage);
+        } catch (FrameworkException e) {
+            futures.remove(rpcMessage.getId());
+            messageFuture.setResultMessage(e);
+            return messageFuture;
+        }
+        writeFuture.addListener((ChannelFutureListener) future -> {
+            if (!future.isSuccess()) {
+                MessageFuture messageFuture1 = futures.remove(rpcMessage.getId());
+                if (messageFuture1 != null) {
+                    messageFuture1.setResultMessage(future.cause());
+                }
+                if (!ChannelOutboundQueue.isRejection(future.cause())) {
+                    destroyChannel(future.channel());
+                }
+            }
+        });
+        return messageFuture;
+    }
+
     /**
      * rpc async request.
      *
      * @param channel    netty channel
      * @param rpcMessage rpc message
+     * @return the future of the write
      */
-    protected void sendAsync(Channel channel, RpcMessage rpcMessage) {
-        channelWritableCheck(channel, rpcMessage.getBody());
+    protected ChannelFuture sendAsync(Channel channel, RpcMessage rpcMessage) {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("write message:" + rpcMessage.getBody() + ", channel:" + channel + ",active?"
                 + channel.isActive() + ",writable?" + channel.isWritable() + ",isopen?" + channel.isOpen());
@@ -214,13 +282,23 @@ public abstract class AbstractNettyRemoting implements Disposable {
 
         doBeforeRpcHooks(ChannelUtil.getAddressFromChannel(channel), rpcMessage);
 
-        channel.writeAndFlush(rpcMessage).addListener((ChannelFutureListener) future -> {
-            if (!future.isSuccess()) {
+        return ChannelOutboundQueue.of(channel).writeAndFlush(rpcMessage).addListener((ChannelFutureListener) future -> {
+            if (!future.isSuccess() && !ChannelOutboundQueue.isRejection(future.cause())) {
                 destroyChannel(future.channel());
             }
         });
     }
 
+    private void expire(int id, long timeoutMillis) {
+        MessageFuture messageFuture = futures.remove(id);
+        if (messageFuture != null) {
+            messageFuture.setResultMessage(new TimeoutException("no response in " + timeoutMillis + " ms"));
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("timeout clear future: {}", messageFuture.getRequestMessage().getBody());
+            }
+        }
+    }
+
     protected RpcMessage buildRequestMessage(Object msg, byte messageType) {
         RpcMessage rpcMessage = new RpcMessage();
         rpcMessage.setId(getNextMessageId());
@@ -241,11 +319,6 @@ public abstract class AbstractNettyRemoting implements Disposable {
         return rpcMsg;
     }
 
-    /**
-     * For testing. When the thread pool is full, you can change this variable and share the stack
-     */
-    boolean allowDumpStack = false;
-
     /**
      * Rpc message processing.
      *
@@ -259,9 +332,13 @@ public abstract class AbstractNettyRemoting implements Disposable {
             LOGGER.debug(String.format("%s msgId:%s, body:%s", this, rpcMessage.getId(), rpcMessage.getBody()));
         }
         Object body = rpcMessage.getBody();
+        if (body instanceof LazyBody) {
+            processLazyMessage(ctx, rpcMessage, (LazyBody) body);
+            return;
+        }
         if (body instanceof MessageTypeAware) {
             MessageTypeAware messageTypeAware = (MessageTypeAware) body;
-            //通过消息发送类型获取相应的Pair    MessageType这个类中指定了响应的类型，对应的RemotingProcessor
+            //通过消息发送类型获取相应的Entry   MessageType这个类中指定了响应的类型，对应的RemotingProcessor
             /**
              * RemotingProcessor  有不同的发送请求的处理器
              * ServerOnRequestProcessor    【11，13，1，7，21，17，9，15，59】
@@ -270,37 +347,28 @@ public abstract class AbstractNettyRemoting implements Disposable {
              * RegTmProcessor              【101】
              * ServerHeartbeatProcessor    【120】
              */
-            final Pair<RemotingProcessor, ExecutorService> pair = this.processorTable.get((int) messageTypeAware.getTypeCode());
-            if (pair != null) {
-                if (pair.getSecond() != null) {
+            final ProcessorTable.Entry entry = this.processorTable.get(messageTypeAware.getTypeCode());
+            if (entry != null) {
+                entry.onDispatched();
+                ExecutorService executor = entry.getExecutor();
+                if (executor != null) {
+                    ProcessTask task = new ProcessTask(entry, admissionController, ctx, rpcMessage);
                     try {
-                        pair.getSecond().execute(() -> {
-                            try {
-                                pair.getFirst().process(ctx, rpcMessage);
-                            } catch (Throwable th) {
-                                LOGGER.error(FrameworkErrorCode.NetDispatch.getErrCode(), th.getMessage(), th);
-                            } finally {
-                                MDC.clear();
-                            }
-                        });
+                        executor.execute(task);
                     } catch (RejectedExecutionException e) {
-                        LOGGER.error(FrameworkErrorCode.ThreadPoolFull.getErrCode(),
-                            "thread pool is full, current max pool size is " + messageExecutor.getActiveCount());
-                        if (allowDumpStack) {
-                            String name = ManagementFactory.getRuntimeMXBean().getName();
-                            String pid = name.split("@")[0];
-                            int idx = new Random().nextInt(100);
-                            try {
-                                Runtime.getRuntime().exec("jstack " + pid + " >d:/" + idx + ".log");
-                            } catch (IOException exx) {
-                                LOGGER.error(exx.getMessage());
-                            }
-                            allowDumpStack = false;
+                        entry.onRejected();
+                        if (AdmissionController.isAlwaysAdmitted(messageTypeAware.getTypeCode())) {
+                            // needed to finish the running transactions, hand it to the reserved threads
+                            executeReserved(task, messageTypeAware.getTypeCode());
+                        } else {
+                            LOGGER.error(FrameworkErrorCode.ThreadPoolFull.getErrCode(),
+                                "thread pool is full, message type: " + messageTypeAware.getTypeCode()
+                                    + ", executor: " + executor);
                         }
                     }
                 } else {
                     try {
-                        pair.getFirst().process(ctx, rpcMessage);
+                        entry.getProcessor().process(ctx, rpcMessage);
                     } catch (Throwable th) {
                         LOGGER.error(FrameworkErrorCode.NetDispatch.getErrCode(), th.getMessage(), th);
                     }
@@ -313,6 +381,54 @@ public abstract class AbstractNettyRemoting implements Disposable {
         }
     }
 
+    private void executeReserved(ProcessTask task, int typeCode) {
+        try {
+            reservedExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            LOGGER.error(FrameworkErrorCode.ThreadPoolFull.getErrCode(),
+                "thread pool is full, message type: " + typeCode + ", executor: " + reservedExecutor);
+        }
+    }
+
+    /**
+     * Decode a deferred body on the message executor, then process the message there as a
+     * {@link ProcessTask} if its processor runs on the message executor. Any other message is
+     * dispatched by {@link #processMessage}, with the rejection handling of its executor. A body the
+     * full executor rejects is dropped undecoded, since its message type is not known yet.
+     *
+     * @param ctx        Channel handler context.
+     * @param rpcMessage rpc message.
+     * @param lazyBody   the deferred body of the message.
+     */
+    private void processLazyMessage(ChannelHandlerContext ctx, RpcMessage rpcMessage, LazyBody lazyBody) {
+        final long enqueueNanos = System.nanoTime();
+        try {
+            messageExecutor.execute(() -> {
+                try {
+                    Object body = lazyBody.decode();
+                    rpcMessage.setBody(body);
+                    ProcessorTable.Entry entry = body instanceof MessageTypeAware
+                        ? this.processorTable.get(((MessageTypeAware) body).getTypeCode()) : null;
+                    if (entry != null && entry.getExecutor() == messageExecutor) {
+                        // already on its executor: run it as the task it would have been, queue wait included
+                        entry.onDispatched();
+                        new ProcessTask(entry, admissionController, ctx, rpcMessage, enqueueNanos).run();
+                    } else {
+                        processMessage(ctx, rpcMessage);
+                    }
+                } catch (Throwable th) {
+                    LOGGER.error(FrameworkErrorCode.NetDispatch.getErrCode(), th.getMessage(), th);
+                } finally {
+                    MDC.clear();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            lazyBody.release();
+            LOGGER.error(FrameworkErrorCode.ThreadPoolFull.getErrCode(),
+                "thread pool is full, message executor: " + messageExecutor);
+        }
+    }
+
     /**
      * Gets address from context.
      *
@@ -335,11 +451,6 @@ public abstract class AbstractNettyRemoting implements Disposable {
         return address;
     }
 
-    private void channelWritableCheck(Channel channel, Object msg) {
-        int tryTimes = 0;
-
-    }
-
     /**
      * Destroy channel.
      *
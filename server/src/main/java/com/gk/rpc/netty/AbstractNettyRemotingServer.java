@@ -15,8 +15,8 @@
  */
 package com.gk.rpc.netty;
 
-import com.gk.rpc.processor.Pair;
 import com.gk.rpc.processor.RemotingProcessor;
+import com.gk.rpc.protocol.AbstractResultMessage;
 import com.gk.rpc.protocol.HeartbeatMessage;
 import com.gk.rpc.protocol.ProtocolConstants;
 import com.gk.rpc.protocol.RpcMessage;
@@ -27,8 +27,10 @@ import io.netty.util.NetUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -49,7 +51,7 @@ public abstract class AbstractNettyRemotingServer extends AbstractNettyRemoting
         serverBootstrap.start();
     }
 
-    public AbstractNettyRemotingServer(ThreadPoolExecutor messageExecutor, NettyServerConfig nettyServerConfig) {
+    public AbstractNettyRemotingServer(ExecutorService messageExecutor, NettyServerConfig nettyServerConfig) {
         super(messageExecutor);
         serverBootstrap = new NettyServerBootstrap(nettyServerConfig);
         serverBootstrap.setChannelHandlers(new ServerHandler());
@@ -65,6 +67,19 @@ public abstract class AbstractNettyRemotingServer extends AbstractNettyRemoting
         return super.sendSync(channel, rpcMessage, NettyServerConfig.getRpcRequestTimeout());
     }
 
+    @Override
+    public CompletionStage<Object> sendRequestAsync(String resourceId, String clientId, Object msg) {
+        Channel channel = ChannelManager.getChannel(resourceId, clientId);
+        if (channel == null) {
+            CompletableFuture<Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new RuntimeException("rm client is not connected. dbkey:" + resourceId
+                + ",clientId:" + clientId));
+            return failed;
+        }
+        RpcMessage rpcMessage = buildRequestMessage(msg, ProtocolConstants.MSGTYPE_RESQUEST_SYNC);
+        return super.sendRequest(channel, rpcMessage, NettyServerConfig.getRpcRequestTimeout());
+    }
+
     @Override
     public Object sendSyncRequest(Channel channel, Object msg) throws TimeoutException {
         if (channel == null) {
@@ -85,15 +100,39 @@ public abstract class AbstractNettyRemotingServer extends AbstractNettyRemoting
 
     @Override
     public void sendAsyncResponse(RpcMessage rpcMessage, Channel channel, Object msg) {
+        sendAsyncResponse(rpcMessage, channel, msg, null);
+    }
+
+    @Override
+    public void sendAsyncResponse(RpcMessage rpcMessage, Channel channel, Object msg, Map<String, String> headMap) {
+        sendAsyncResponse(rpcMessage, channel, msg, headMap, null);
+    }
+
+    @Override
+    public void sendAsyncResponse(RpcMessage rpcMessage, Channel channel, Object msg, Map<String, String> headMap,
+                                  ChannelFutureListener listener) {
         Channel clientChannel = channel;
         if (!(msg instanceof HeartbeatMessage)) {
             clientChannel = ChannelManager.getSameClientChannel(channel);
         }
         if (clientChannel != null) {
+            if (headMap == null && listener == null && msg instanceof AbstractResultMessage) {
+                ResponseAggregator aggregator = ResponseAggregator.of(clientChannel, this);
+                if (aggregator != null) {
+                    aggregator.offer(rpcMessage, (AbstractResultMessage) msg);
+                    return;
+                }
+            }
             RpcMessage rpcMsg = buildResponseMessage(rpcMessage, msg, msg instanceof HeartbeatMessage
                 ? ProtocolConstants.MSGTYPE_HEARTBEAT_RESPONSE
                 : ProtocolConstants.MSGTYPE_RESPONSE);
-            super.sendAsync(clientChannel, rpcMsg);
+            if (headMap != null) {
+                rpcMsg.getHeadMap().putAll(headMap);
+            }
+            ChannelFuture future = super.sendAsync(clientChannel, rpcMsg);
+            if (listener != null) {
+                future.addListener(listener);
+            }
         } else {
             throw new RuntimeException("channel is error.");
         }
@@ -101,8 +140,7 @@ public abstract class AbstractNettyRemotingServer extends AbstractNettyRemoting
 
     @Override
     public void registerProcessor(int messageType, RemotingProcessor processor, ExecutorService executor) {
-        Pair<RemotingProcessor, ExecutorService> pair = new Pair<>(processor, executor);
-        this.processorTable.put(messageType, pair);
+        this.processorTable.register(messageType, processor, executor);
     }
 
     /**
@@ -171,10 +209,8 @@ public abstract class AbstractNettyRemotingServer extends AbstractNettyRemoting
 
         @Override
         public void channelWritabilityChanged(ChannelHandlerContext ctx) {
-            synchronized (lock) {
-                if (ctx.channel().isWritable()) {
-                    lock.notifyAll();
-                }
+            if (ctx.channel().isWritable()) {
+                ChannelOutboundQueue.channelWritable(ctx.channel());
             }
             ctx.fireChannelWritabilityChanged();
         }
@@ -0,0 +1,92 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the connections accepted by one listening socket, installed on the server channel.
+ */
+public class AcceptorStatsHandler extends ChannelInboundHandlerAdapter {
+
+    private final int index;
+
+    private final LongAdder accepted = new LongAdder();
+
+    private volatile SocketAddress localAddress;
+
+    private long lastSampleCount;
+
+    private long lastSampleNanos = System.nanoTime();
+
+    public AcceptorStatsHandler(int index) {
+        this.index = index;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        localAddress = ctx.channel().localAddress();
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        // every message of a server channel is an accepted child channel
+        accepted.increment();
+        super.channelRead(ctx, msg);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public SocketAddress getLocalAddress() {
+        return localAddress;
+    }
+
+    /**
+     * Gets the number of accepted connections.
+     *
+     * @return the count
+     */
+    public long getAcceptedCount() {
+        return accepted.sum();
+    }
+
+    /**
+     * Gets the accept rate since the previous call.
+     *
+     * @return accepted connections per second
+     */
+    public synchronized double sampleAcceptRate() {
+        long count = accepted.sum();
+        long now = System.nanoTime();
+        long elapsed = now - lastSampleNanos;
+        double rate = elapsed <= 0 ? 0 : (count - lastSampleCount) * 1e9 / elapsed;
+        lastSampleCount = count;
+        lastSampleNanos = now;
+        return rate;
+    }
+
+    @Override
+    public String toString() {
+        return "acceptor-" + index + "{address=" + localAddress + ", accepted=" + accepted.sum() + '}';
+    }
+}
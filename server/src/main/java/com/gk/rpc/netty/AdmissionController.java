@@ -0,0 +1,200 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty;
+
+import com.gk.rpc.constants.ConfigurationKeys;
+import com.gk.rpc.protocol.MessageType;
+import io.seata.core.Configuration;
+import io.seata.core.ConfigurationFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether new work is admitted, from the queue wait and processing latency of the messages.
+ * <p>
+ * The smallest queue wait seen in each interval tells a standing queue from a burst: when even the
+ * luckiest message of an interval waited longer than the target, the server is overloaded and new
+ * global transactions are rejected until an interval stays under the target again. The processing
+ * latency of global begin is checked the same way against its own target. Only
+ * {@link MessageType#TYPE_GLOBAL_BEGIN} is ever shed; finishing the transactions already running
+ * is what drains the overload.
+ */
+public class AdmissionController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdmissionController.class);
+
+    private static final int MAX_TYPE_CODE = 256;
+
+    /**
+     * Weight of a new sample in the latency averages, 1/8.
+     */
+    private static final int EWMA_SHIFT = 3;
+
+    private static final long DEFAULT_TARGET_QUEUE_WAIT_MILLIS = 20L;
+
+    private static final long DEFAULT_TARGET_LATENCY_MILLIS = 100L;
+
+    private static final long DEFAULT_INTERVAL_MILLIS = 100L;
+
+    private final boolean enabled;
+
+    private final long targetQueueWaitNanos;
+
+    private final long targetLatencyNanos;
+
+    private final long intervalNanos;
+
+    private final AtomicLongArray queueWaitNanos = new AtomicLongArray(MAX_TYPE_CODE);
+
+    private final AtomicLongArray latencyNanos = new AtomicLongArray(MAX_TYPE_CODE);
+
+    private final AtomicLong intervalStart = new AtomicLong(System.nanoTime());
+
+    private final AtomicLong intervalMinQueueWait = new AtomicLong(Long.MAX_VALUE);
+
+    private final LongAdder shed = new LongAdder();
+
+    private volatile boolean overloaded;
+
+    public AdmissionController() {
+        Configuration config = ConfigurationFactory.getInstance();
+        this.enabled = config.getBoolean(ConfigurationKeys.ADMISSION_ENABLE, false);
+        this.targetQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(
+            config.getLong(ConfigurationKeys.ADMISSION_TARGET_QUEUE_WAIT_MILLIS, DEFAULT_TARGET_QUEUE_WAIT_MILLIS));
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(
+            config.getLong(ConfigurationKeys.ADMISSION_TARGET_LATENCY_MILLIS, DEFAULT_TARGET_LATENCY_MILLIS));
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(
+            config.getLong(ConfigurationKeys.ADMISSION_INTERVAL_MILLIS, DEFAULT_INTERVAL_MILLIS));
+    }
+
+    /**
+     * Whether a message type is processed even when the executor is full: heartbeats and the
+     * results of branch commit and rollback, which are cheap and which finish running transactions.
+     *
+     * @param typeCode the message type
+     * @return true if the message must not be dropped
+     */
+    public static boolean isAlwaysAdmitted(int typeCode) {
+        return typeCode == MessageType.TYPE_HEARTBEAT_MSG
+            || typeCode == MessageType.TYPE_BRANCH_COMMIT_RESULT
+            || typeCode == MessageType.TYPE_BRANCH_ROLLBACK_RESULT;
+    }
+
+    /**
+     * Record a processed message.
+     *
+     * @param typeCode        the message type
+     * @param queueWaitNanos  how long the message waited for a thread
+     * @param processingNanos how long the processor ran
+     */
+    public void record(int typeCode, long queueWaitNanos, long processingNanos) {
+        if (typeCode >= 0 && typeCode < MAX_TYPE_CODE) {
+            update(this.queueWaitNanos, typeCode, queueWaitNanos);
+            update(this.latencyNanos, typeCode, processingNanos);
+        }
+        if (!enabled) {
+            return;
+        }
+        long min;
+        while (queueWaitNanos < (min = intervalMinQueueWait.get())) {
+            if (intervalMinQueueWait.compareAndSet(min, queueWaitNanos)) {
+                break;
+            }
+        }
+        long now = System.nanoTime();
+        long start = intervalStart.get();
+        if (now - start >= intervalNanos && intervalStart.compareAndSet(start, now)) {
+            long intervalMin = intervalMinQueueWait.getAndSet(Long.MAX_VALUE);
+            boolean next = intervalMin > targetQueueWaitNanos
+                || latencyNanos.get(MessageType.TYPE_GLOBAL_BEGIN) > targetLatencyNanos;
+            if (next != overloaded) {
+                overloaded = next;
+                LOGGER.warn("admission control {}, min queue wait: {}ms, global begin latency: {}ms",
+                    next ? "shedding new global transactions" : "admitting all requests",
+                    TimeUnit.NANOSECONDS.toMillis(intervalMin),
+                    TimeUnit.NANOSECONDS.toMillis(latencyNanos.get(MessageType.TYPE_GLOBAL_BEGIN)));
+            }
+        }
+    }
+
+    /**
+     * Whether a request is admitted.
+     *
+     * @param typeCode the message type of the request
+     * @return false if the request should be rejected with a retryable result
+     */
+    public boolean admit(int typeCode) {
+        return !enabled || !overloaded || typeCode != MessageType.TYPE_GLOBAL_BEGIN;
+    }
+
+    /**
+     * Count a rejection which was sent to the client.
+     */
+    public void recordShed() {
+        shed.increment();
+    }
+
+    /**
+     * Whether new global transactions are being shed.
+     *
+     * @return true if overloaded
+     */
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    /**
+     * Gets the number of rejections sent.
+     *
+     * @return the shed count
+     */
+    public long getShedCount() {
+        return shed.sum();
+    }
+
+    /**
+     * Gets the average queue wait of a message type.
+     *
+     * @param typeCode the message type
+     * @return the average queue wait in nanoseconds
+     */
+    public long getQueueWaitNanos(int typeCode) {
+        return queueWaitNanos.get(typeCode);
+    }
+
+    /**
+     * Gets the average processing latency of a message type.
+     *
+     * @param typeCode the message type
+     * @return the average latency in nanoseconds
+     */
+    public long getLatencyNanos(int typeCode) {
+        return latencyNanos.get(typeCode);
+    }
+
+    /**
+     * Move the average toward the sample. Updates may race, which only loses a sample.
+     */
+    private static void update(AtomicLongArray averages, int index, long sample) {
+        long current = averages.get(index);
+        averages.lazySet(index, current + ((sample - current) >> EWMA_SHIFT));
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty;
+
+import com.gk.rpc.constants.ConfigurationKeys;
+import com.gk.rpc.netty.v1.EncodedSizeEstimator;
+import com.gk.rpc.protocol.RpcMessage;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.AttributeKey;
+import io.seata.core.Configuration;
+import io.seata.core.ConfigurationFactory;
+import io.seata.exception.FrameworkErrorCode;
+import io.seata.exception.FrameworkException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded outbound queue in front of one channel.
+ * <p>
+ * While the channel is writable and nothing is queued, messages are written straight through. Once
+ * the channel goes over its high water mark, messages are queued here up to
+ * {@code transport.outboundQueue.maxBytes} (estimated encoded size), and drained on the event loop
+ * when the channel becomes writable again. A full queue is handled by the configured
+ * {@link OutboundQueuePolicy}. Only senders to the slow channel are affected.
+ */
+public final class ChannelOutboundQueue {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChannelOutboundQueue.class);
+
+    private static final Configuration CONFIG = ConfigurationFactory.getInstance();
+
+    private static final AttributeKey<ChannelOutboundQueue> QUEUE_KEY = AttributeKey.valueOf("outboundQueue");
+
+    private static final long MAX_QUEUED_BYTES = CONFIG.getLong(ConfigurationKeys.OUTBOUND_QUEUE_MAX_BYTES,
+        4L * 1024 * 1024);
+
+    private static final OutboundQueuePolicy POLICY = OutboundQueuePolicy.getPolicy(
+        CONFIG.getConfig(ConfigurationKeys.OUTBOUND_QUEUE_POLICY, OutboundQueuePolicy.BLOCK.name()));
+
+    private static final long BLOCK_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(
+        CONFIG.getLong(ConfigurationKeys.OUTBOUND_QUEUE_BLOCK_TIMEOUT_MILLIS, 1000L));
+
+    private static final LongAdder SHED_MESSAGES = new LongAdder();
+
+    private static final LongAdder REJECTED_MESSAGES = new LongAdder();
+
+    private static final LongAdder QUEUED_MESSAGES = new LongAdder();
+
+    private final Channel channel;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final ArrayDeque<PendingWrite> queue = new ArrayDeque<>();
+
+    private final Runnable drainTask = this::drain;
+
+    private volatile long queuedBytes;
+
+    private ChannelOutboundQueue(Channel channel) {
+        this.channel = channel;
+        channel.closeFuture().addListener((ChannelFutureListener) future -> failAll());
+    }
+
+    /**
+     * Gets the queue of the channel, creating it on first use.
+     *
+     * @param channel the channel
+     * @return the queue
+     */
+    public static ChannelOutboundQueue of(Channel channel) {
+        ChannelOutboundQueue queue = channel.attr(QUEUE_KEY).get();
+        if (queue == null) {
+            ChannelOutboundQueue created = new ChannelOutboundQueue(channel);
+            queue = channel.attr(QUEUE_KEY).setIfAbsent(created);
+            if (queue == null) {
+                queue = created;
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Drain the queue of the channel if it has one, called on the event loop when the channel
+     * becomes writable.
+     *
+     * @param channel the channel
+     */
+    public static void channelWritable(Channel channel) {
+        ChannelOutboundQueue queue = channel.attr(QUEUE_KEY).get();
+        if (queue != null) {
+            queue.drain();
+        }
+    }
+
+    /**
+     * Gets the bytes waiting to go out on the channel: the estimated size of the queued messages
+     * plus what netty has buffered but not yet written to the socket.
+     *
+     * @param channel the channel
+     * @return the pending bytes
+     */
+    public static long getPendingBytes(Channel channel) {
+        ChannelOutboundQueue queue = channel.attr(QUEUE_KEY).get();
+        long queued = queue == null ? 0L : queue.queuedBytes;
+        ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+        return queued + (buffer == null ? 0L : buffer.totalPendingWriteBytes());
+    }
+
+    /**
+     * Gets the number of messages dropped by {@link OutboundQueuePolicy#SHED}.
+     *
+     * @return the shed count
+     */
+    public static long getShedCount() {
+        return SHED_MESSAGES.sum();
+    }
+
+    /**
+     * Gets the number of messages rejected by {@link OutboundQueuePolicy#FAIL_FAST} or a
+     * {@link OutboundQueuePolicy#BLOCK} timeout.
+     *
+     * @return the rejected count
+     */
+    public static long getRejectedCount() {
+        return REJECTED_MESSAGES.sum();
+    }
+
+    /**
+     * Gets the number of messages that had to wait in a queue.
+     *
+     * @return the queued count
+     */
+    public static long getQueuedCount() {
+        return QUEUED_MESSAGES.sum();
+    }
+
+    /**
+     * Tells whether a write failed because the outbound queue was full, such a failure must not
+     * close the channel.
+     *
+     * @param cause the cause of the failed write
+     * @return true if rejected by the queue
+     */
+    public static boolean isRejection(Throwable cause) {
+        return cause instanceof FrameworkException
+            && ((FrameworkException) cause).getErrcode() == FrameworkErrorCode.ChannelIsNotWritable;
+    }
+
+    /**
+     * Gets the estimated size of the messages queued on this channel.
+     *
+     * @return the queued bytes
+     */
+    public long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    /**
+     * Write and flush the message, or queue it while the channel is not writable.
+     *
+     * @param rpcMessage the rpc message
+     * @return the write future
+     * @throws FrameworkException if the queue is full and the policy is {@link OutboundQueuePolicy#FAIL_FAST}
+     *                            or {@link OutboundQueuePolicy#BLOCK} timed out
+     */
+    public ChannelFuture writeAndFlush(RpcMessage rpcMessage) {
+        ChannelPromise promise = channel.newPromise();
+        int size = EncodedSizeEstimator.estimate(rpcMessage.getBody());
+        lock.lock();
+        try {
+            if (queue.isEmpty() && channel.isWritable() || !channel.isActive()) {
+                // fall through to a direct write outside the lock
+                promise = null;
+            } else {
+                long nanos = BLOCK_TIMEOUT_NANOS;
+                while (!queue.isEmpty() && queuedBytes + size > MAX_QUEUED_BYTES) {
+                    if (POLICY == OutboundQueuePolicy.SHED) {
+                        SHED_MESSAGES.increment();
+                        if (LOGGER.isDebugEnabled()) {
+                            LOGGER.debug("outbound queue full, shed message:{}, channel:{}", rpcMessage.getBody(), channel);
+                        }
+                        return promise.setFailure(full());
+                    }
+                    if (POLICY == OutboundQueuePolicy.FAIL_FAST || nanos <= 0L || channel.eventLoop().inEventLoop()) {
+                        REJECTED_MESSAGES.increment();
+                        throw full();
+                    }
+                    nanos = notFull.awaitNanos(nanos);
+                    if (!channel.isActive()) {
+                        throw new FrameworkException("channel closed while waiting for outbound queue",
+                            FrameworkErrorCode.ChannelIsNotWritable);
+                    }
+                }
+                queue.add(new PendingWrite(rpcMessage, promise, size));
+                queuedBytes += size;
+                QUEUED_MESSAGES.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            REJECTED_MESSAGES.increment();
+            throw new FrameworkException(e, "interrupted while waiting for outbound queue",
+                FrameworkErrorCode.ChannelIsNotWritable);
+        } finally {
+            lock.unlock();
+        }
+        if (promise == null) {
+            return channel.writeAndFlush(rpcMessage);
+        }
+        if (channel.isWritable()) {
+            // the channel became writable before the message was queued, the event may have been missed
+            channel.eventLoop().execute(drainTask);
+        }
+        return promise;
+    }
+
+    private FrameworkException full() {
+        return new FrameworkException("outbound queue of channel " + channel + " is full, queued bytes:"
+            + queuedBytes, FrameworkErrorCode.ChannelIsNotWritable);
+    }
+
+    /**
+     * Write queued messages while the channel has room, on the event loop.
+     */
+    private void drain() {
+        // the pipeline may buffer writes until flush, so budget by the estimate rather than isWritable
+        long budget = channel.bytesBeforeUnwritable();
+        boolean written = false;
+        while (budget > 0) {
+            PendingWrite pending;
+            lock.lock();
+            try {
+                pending = queue.poll();
+                if (pending == null) {
+                    break;
+                }
+                queuedBytes -= pending.size;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            channel.write(pending.rpcMessage, pending.promise);
+            budget -= pending.size;
+            written = true;
+        }
+        if (written) {
+            channel.flush();
+            if (channel.isWritable() && !isEmpty()) {
+                // still below the high water mark, no writability event will come
+                channel.eventLoop().execute(drainTask);
+            }
+        }
+    }
+
+    private boolean isEmpty() {
+        lock.lock();
+        try {
+            return queue.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void failAll() {
+        ClosedChannelException cause = new ClosedChannelException();
+        lock.lock();
+        try {
+            PendingWrite pending;
+            while ((pending = queue.poll()) != null) {
+                pending.promise.tryFailure(cause);
+            }
+            queuedBytes = 0L;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class PendingWrite {
+
+        private final RpcMessage rpcMessage;
+
+        private final ChannelPromise promise;
+
+        private final int size;
+
+        private PendingWrite(RpcMessage rpcMessage, ChannelPromise promise, int size) {
+            this.rpcMessage = rpcMessage;
+            this.promise = promise;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.AttributeKey;
+import io.seata.thread.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read idle detection shared by all channels, in place of one {@link io.netty.handler.timeout.IdleStateHandler}
+ * per channel.
+ * <p>
+ * A channel only stamps the time of its last read. The channels are spread over the buckets of a
+ * wheel, and a single thread sweeps one bucket per tick, so the wheel turns once per idle time and a
+ * channel is found idle between one and two idle times after its last read. An idle channel gets a
+ * reader idle {@link IdleStateEvent}, handled as before by the server handler. At most
+ * {@code closeBatchSize} channels are signalled per tick, the others in the following ticks, so a mass
+ * timeout does not close every channel at once.
+ */
+@ChannelHandler.Sharable
+public class IdleChannelTracker extends ChannelInboundHandlerAdapter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdleChannelTracker.class);
+
+    private static final AttributeKey<Tracked> TRACKED = AttributeKey.valueOf("idleTracked");
+
+    private static final long MIN_TICK_MILLIS = 10L;
+
+    private final long idleNanos;
+
+    private final int closeBatchSize;
+
+    private final List<Set<Tracked>> buckets;
+
+    private final AtomicInteger nextBucket = new AtomicInteger();
+
+    /**
+     * Idle channels waiting for their turn to be signalled, only used by the sweeping thread.
+     */
+    private final Queue<Tracked> pendingIdle = new ArrayDeque<>();
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(
+        new NamedThreadFactory("idleChannelTracker", 1, true));
+
+    private final LongAdder idleCount = new LongAdder();
+
+    private int cursor;
+
+    public IdleChannelTracker(long idleMillis, int bucketCount, int closeBatchSize) {
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        this.closeBatchSize = Math.max(closeBatchSize, 1);
+        this.buckets = new ArrayList<>(Math.max(bucketCount, 1));
+        for (int i = 0; i < Math.max(bucketCount, 1); i++) {
+            buckets.add(ConcurrentHashMap.newKeySet());
+        }
+        long tickMillis = Math.max(idleMillis / buckets.size(), MIN_TICK_MILLIS);
+        sweeper.scheduleAtFixedRate(this::sweep, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        Tracked tracked = new Tracked(ctx, Math.floorMod(nextBucket.getAndIncrement(), buckets.size()));
+        ctx.channel().attr(TRACKED).set(tracked);
+        buckets.get(tracked.bucket).add(tracked);
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        Tracked tracked = ctx.channel().attr(TRACKED).get();
+        if (tracked != null) {
+            tracked.lastReadNanos = System.nanoTime();
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        Tracked tracked = ctx.channel().attr(TRACKED).getAndSet(null);
+        if (tracked != null) {
+            buckets.get(tracked.bucket).remove(tracked);
+        }
+        super.channelInactive(ctx);
+    }
+
+    /**
+     * Gets the number of tracked channels.
+     *
+     * @return the channel count
+     */
+    public int getTrackedCount() {
+        int count = 0;
+        for (Set<Tracked> bucket : buckets) {
+            count += bucket.size();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of channels signalled as read idle.
+     *
+     * @return the idle count
+     */
+    public long getIdleCount() {
+        return idleCount.sum();
+    }
+
+    /**
+     * Stop sweeping.
+     */
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    private void sweep() {
+        try {
+            long now = System.nanoTime();
+            for (Tracked tracked : buckets.get(cursor)) {
+                if (!tracked.signalled && now - tracked.lastReadNanos >= idleNanos) {
+                    tracked.signalled = true;
+                    pendingIdle.offer(tracked);
+                }
+            }
+            cursor = (cursor + 1) % buckets.size();
+            for (int i = 0; i < closeBatchSize && !pendingIdle.isEmpty(); i++) {
+                signal(pendingIdle.poll(), now);
+            }
+        } catch (Throwable t) {
+            LOGGER.error("sweep idle channels error: {}", t.getMessage(), t);
+        }
+    }
+
+    private void signal(Tracked tracked, long now) {
+        // like IdleStateHandler, signal again after another turn if the channel stays idle
+        tracked.signalled = false;
+        ChannelHandlerContext ctx = tracked.ctx;
+        if (!ctx.channel().isActive() || now - tracked.lastReadNanos < idleNanos) {
+            return;
+        }
+        idleCount.increment();
+        ctx.executor().execute(() -> ctx.fireUserEventTriggered(IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT));
+    }
+
+    private static final class Tracked {
+
+        private final ChannelHandlerContext ctx;
+
+        private final int bucket;
+
+        private volatile long lastReadNanos = System.nanoTime();
+
+        /**
+         * Whether the channel is queued to be signalled, only used by the sweeping thread.
+         */
+        private boolean signalled;
+
+        private Tracked(ChannelHandlerContext ctx, int bucket) {
+            this.ctx = ctx;
+            this.bucket = bucket;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty;
+
+import com.gk.rpc.netty.v1.ProtocolV1Decoder;
+import com.gk.rpc.netty.v1.ProtocolV1Encoder;
+import com.gk.rpc.netty.v2.ProtocolV2Decoder;
+import com.gk.rpc.netty.v2.ProtocolV2Encoder;
+import com.gk.rpc.protocol.ProtocolConstants;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.util.List;
+
+/**
+ * Picks the codec of a connection from the version byte of its first frame, then replaces itself
+ * with the decoder and encoder of that version. The client decides the version, the server answers
+ * in the same one, so old clients keep talking v1.
+ */
+public class MultiProtocolDecoder extends ByteToMessageDecoder {
+
+    /**
+     * magic code(2B) + version(1B)
+     */
+    private static final int PREFIX_LENGTH = 3;
+
+    /**
+     * Whether the v1 decoder answers heartbeats itself.
+     */
+    private final boolean heartbeatFastPath;
+
+    public MultiProtocolDecoder() {
+        this(false);
+    }
+
+    public MultiProtocolDecoder(boolean heartbeatFastPath) {
+        this.heartbeatFastPath = heartbeatFastPath;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        if (in.readableBytes() < PREFIX_LENGTH) {
+            return;
+        }
+        int start = in.readerIndex();
+        if (ProtocolConstants.MAGIC_CODE_BYTES[0] != in.getByte(start)
+                || ProtocolConstants.MAGIC_CODE_BYTES[1] != in.getByte(start + 1)) {
+            throw new IllegalArgumentException("Unknown magic code: " + in.getByte(start) + ", " + in.getByte(start + 1));
+        }
+        byte version = in.getByte(start + 2);
+        ChannelHandler decoder;
+        ChannelHandler encoder;
+        if (version == ProtocolConstants.VERSION_V2) {
+            decoder = new ProtocolV2Decoder();
+            encoder = new ProtocolV2Encoder();
+        } else {
+            // v1 does not check the version either
+            decoder = new ProtocolV1Decoder(ProtocolConstants.MAX_FRAME_LENGTH, heartbeatFastPath);
+            encoder = new ProtocolV1Encoder();
+        }
+        ChannelPipeline pipeline = ctx.pipeline();
+        pipeline.addAfter(ctx.name(), null, encoder);
+        // the bytes buffered so far are handed over to the new decoder
+        pipeline.replace(this, null, decoder);
+    }
+}
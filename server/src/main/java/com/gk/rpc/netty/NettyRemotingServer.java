@@ -15,13 +15,21 @@
  */
 package com.gk.rpc.netty;
 
+import com.gk.rpc.constants.ConfigurationKeys;
 import com.gk.rpc.processor.server.*;
 import com.gk.rpc.protocol.MessageType;
 import io.netty.channel.Channel;
+import io.seata.core.ConfigurationFactory;
+import io.seata.thread.NamedThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -39,11 +47,13 @@ public class NettyRemotingServer extends AbstractNettyRemotingServer {
 
     private final AtomicBoolean initialized = new AtomicBoolean(false);
 
+    private final Map<Integer, ExecutorService> dedicatedExecutors = new HashMap<>();
+
     @Override
     public void init() {
-        // registry processor
-        registerProcessor();
         if (initialized.compareAndSet(false, true)) {
+            // registry processor
+            registerProcessor();
             super.init();
         }
     }
@@ -53,7 +63,7 @@ public class NettyRemotingServer extends AbstractNettyRemotingServer {
      *
      * @param messageExecutor   the message executor
      */
-    public NettyRemotingServer(ThreadPoolExecutor messageExecutor) {
+    public NettyRemotingServer(ExecutorService messageExecutor) {
         super(messageExecutor, new NettyServerConfig());
     }
 
@@ -82,28 +92,72 @@ public class NettyRemotingServer extends AbstractNettyRemotingServer {
     private void registerProcessor() {
         // 1. registry on request message processor
         ServerOnRequestProcessor onRequestProcessor =
-            new ServerOnRequestProcessor(this, getHandler());
+            new ServerOnRequestProcessor(this, getHandler(), admissionController);
         /**
-         * Map 事务类型作为键 值（Pair<RemotingProcessor, ExecutorService> pair = new Pair<>(processor, executor); ）
+         * ProcessorTable 事务类型作为下标 值（ProcessorTable.Entry：processor, executor 和计数）
          */
-        super.registerProcessor(MessageType.TYPE_BRANCH_REGISTER, onRequestProcessor, messageExecutor);
-        super.registerProcessor(MessageType.TYPE_BRANCH_STATUS_REPORT, onRequestProcessor, messageExecutor);
-        super.registerProcessor(MessageType.TYPE_GLOBAL_BEGIN, onRequestProcessor, messageExecutor);
-        super.registerProcessor(MessageType.TYPE_GLOBAL_COMMIT, onRequestProcessor, messageExecutor);
-        super.registerProcessor(MessageType.TYPE_GLOBAL_LOCK_QUERY, onRequestProcessor, messageExecutor);
-        super.registerProcessor(MessageType.TYPE_GLOBAL_REPORT, onRequestProcessor, messageExecutor);
-        super.registerProcessor(MessageType.TYPE_GLOBAL_ROLLBACK, onRequestProcessor, messageExecutor);
-        super.registerProcessor(MessageType.TYPE_GLOBAL_STATUS, onRequestProcessor, messageExecutor);
-        super.registerProcessor(MessageType.TYPE_SEATA_MERGE, onRequestProcessor, messageExecutor);
+        super.registerProcessor(MessageType.TYPE_BRANCH_REGISTER, onRequestProcessor,
+            executorOf(MessageType.TYPE_BRANCH_REGISTER));
+        super.registerProcessor(MessageType.TYPE_BRANCH_STATUS_REPORT, onRequestProcessor,
+            executorOf(MessageType.TYPE_BRANCH_STATUS_REPORT));
+        super.registerProcessor(MessageType.TYPE_GLOBAL_BEGIN, onRequestProcessor,
+            executorOf(MessageType.TYPE_GLOBAL_BEGIN));
+        super.registerProcessor(MessageType.TYPE_GLOBAL_COMMIT, onRequestProcessor,
+            executorOf(MessageType.TYPE_GLOBAL_COMMIT));
+        super.registerProcessor(MessageType.TYPE_GLOBAL_LOCK_QUERY, onRequestProcessor,
+            executorOf(MessageType.TYPE_GLOBAL_LOCK_QUERY));
+        super.registerProcessor(MessageType.TYPE_GLOBAL_REPORT, onRequestProcessor,
+            executorOf(MessageType.TYPE_GLOBAL_REPORT));
+        super.registerProcessor(MessageType.TYPE_GLOBAL_ROLLBACK, onRequestProcessor,
+            executorOf(MessageType.TYPE_GLOBAL_ROLLBACK));
+        super.registerProcessor(MessageType.TYPE_GLOBAL_STATUS, onRequestProcessor,
+            executorOf(MessageType.TYPE_GLOBAL_STATUS));
+        super.registerProcessor(MessageType.TYPE_SEATA_MERGE, onRequestProcessor,
+            executorOf(MessageType.TYPE_SEATA_MERGE));
         // 2. registry on response message processor
         ServerOnResponseProcessor onResponseProcessor =
             new ServerOnResponseProcessor(getHandler(), getFutures());
-        super.registerProcessor(MessageType.TYPE_BRANCH_COMMIT_RESULT, onResponseProcessor, messageExecutor);
-        super.registerProcessor(MessageType.TYPE_BRANCH_ROLLBACK_RESULT, onResponseProcessor, messageExecutor);
+        super.registerProcessor(MessageType.TYPE_BRANCH_COMMIT_RESULT, onResponseProcessor,
+            executorOf(MessageType.TYPE_BRANCH_COMMIT_RESULT));
+        super.registerProcessor(MessageType.TYPE_BRANCH_ROLLBACK_RESULT, onResponseProcessor,
+            executorOf(MessageType.TYPE_BRANCH_ROLLBACK_RESULT));
 
+        // 3. registry rm message processor
+        RegRmProcessor regRmProcessor = new RegRmProcessor(this);
+        super.registerProcessor(MessageType.TYPE_REG_RM, regRmProcessor, messageExecutor);
+        // 4. registry tm message processor
+        RegTmProcessor regTmProcessor = new RegTmProcessor(this);
+        super.registerProcessor(MessageType.TYPE_REG_CLT, regTmProcessor, null);
         // 5. registry heartbeat message processor
         ServerHeartbeatProcessor heartbeatMessageProcessor = new ServerHeartbeatProcessor(this);
         super.registerProcessor(MessageType.TYPE_HEARTBEAT_MSG, heartbeatMessageProcessor, null);
     }
 
+    /**
+     * Gets the executor of a message type, a dedicated pool when {@code transport.dedicatedExecutor.<type>}
+     * sets its thread count, so an expensive type can not starve the others.
+     *
+     * @param messageType the message type
+     * @return the executor
+     */
+    private ExecutorService executorOf(short messageType) {
+        int threads = ConfigurationFactory.getInstance().getInt(
+            ConfigurationKeys.DEDICATED_EXECUTOR_PREFIX + messageType, 0);
+        if (threads <= 0) {
+            return messageExecutor;
+        }
+        return dedicatedExecutors.computeIfAbsent((int) messageType, type -> new ThreadPoolExecutor(threads, threads,
+            NettyServerConfig.getKeepAliveTime(), TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(NettyServerConfig.getMaxTaskQueueSize()),
+            new NamedThreadFactory("ServerHandlerType" + type, threads)));
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        for (ExecutorService executor : dedicatedExecutors.values()) {
+            executor.shutdown();
+        }
+    }
+
 }
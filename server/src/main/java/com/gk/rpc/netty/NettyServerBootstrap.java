@@ -15,10 +15,9 @@
  */
 package com.gk.rpc.netty;
 
-import com.gk.rpc.netty.v1.ProtocolV1Decoder;
-import com.gk.rpc.netty.v1.ProtocolV1Encoder;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
@@ -30,6 +29,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -49,10 +52,16 @@ public class NettyServerBootstrap implements RemotingBootstrap {
     private ChannelHandler[] channelHandlers;
     private int listenPort;
     private final AtomicBoolean initialized = new AtomicBoolean(false);
+    private final List<AcceptorStatsHandler> acceptorStats = new CopyOnWriteArrayList<>();
+    private final IdleChannelTracker idleChannelTracker;
 
     public NettyServerBootstrap(NettyServerConfig nettyServerConfig) {
 
         this.nettyServerConfig = nettyServerConfig;
+        this.idleChannelTracker = nettyServerConfig.isIdleTrackerEnabled()
+            ? new IdleChannelTracker(TimeUnit.SECONDS.toMillis(nettyServerConfig.getChannelMaxReadIdleSeconds()),
+                nettyServerConfig.getIdleTrackerBuckets(), nettyServerConfig.getIdleTrackerCloseBatchSize())
+            : null;
         if (NettyServerConfig.enableEpoll()) {
             this.eventLoopGroupBoss = new EpollEventLoopGroup(nettyServerConfig.getBossThreadSize(),
                 new NamedThreadFactory(nettyServerConfig.getBossThreadPrefix(), nettyServerConfig.getBossThreadSize()));
@@ -113,6 +122,24 @@ public class NettyServerBootstrap implements RemotingBootstrap {
         return listenPort;
     }
 
+    /**
+     * Gets the accept statistics, one per listening socket.
+     *
+     * @return the acceptor stats
+     */
+    public List<AcceptorStatsHandler> getAcceptorStats() {
+        return Collections.unmodifiableList(acceptorStats);
+    }
+
+    /**
+     * Gets the shared idle tracker.
+     *
+     * @return the tracker, null when every channel has its own IdleStateHandler
+     */
+    public IdleChannelTracker getIdleChannelTracker() {
+        return idleChannelTracker;
+    }
+
     @Override
     public void start() {
         this.serverBootstrap.group(this.eventLoopGroupBoss, this.eventLoopGroupWorker)
@@ -130,9 +157,13 @@ public class NettyServerBootstrap implements RemotingBootstrap {
             .childHandler(new ChannelInitializer<SocketChannel>() {
                 @Override
                 public void initChannel(SocketChannel ch) {
-                    ch.pipeline().addLast(new IdleStateHandler(nettyServerConfig.getChannelMaxReadIdleSeconds(), 0, 0))
-                        .addLast(new ProtocolV1Decoder())
-                        .addLast(new ProtocolV1Encoder());
+                    ch.pipeline().addLast(idleChannelTracker != null ? idleChannelTracker
+                            : new IdleStateHandler(nettyServerConfig.getChannelMaxReadIdleSeconds(), 0, 0))
+                        .addLast(new MultiProtocolDecoder(nettyServerConfig.isHeartbeatFastPathEnabled()));
+                    if (nettyServerConfig.isWriteCoalescingEnabled()) {
+                        // behind the protocol encoder once MultiProtocolDecoder installed it
+                        ch.pipeline().addLast(new WriteCoalescingHandler(nettyServerConfig.getWriteCoalescingWindowMicros()));
+                    }
                     if (channelHandlers != null) {
                         addChannelPipelineLast(ch, channelHandlers);
                     }
@@ -140,13 +171,33 @@ public class NettyServerBootstrap implements RemotingBootstrap {
                 }
             });
 
+        int acceptorCount = nettyServerConfig.getAcceptorCount();
+        if (acceptorCount > 1) {
+            // each bind registers its own listening socket on the next boss event loop, and the kernel
+            // spreads incoming connections over them
+            this.serverBootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
+        this.serverBootstrap.handler(new ChannelInitializer<ServerChannel>() {
+            @Override
+            public void initChannel(ServerChannel ch) {
+                AcceptorStatsHandler stats = new AcceptorStatsHandler(acceptorStats.size());
+                acceptorStats.add(stats);
+                ch.pipeline().addLast(stats);
+            }
+        });
+
         try {
-            ChannelFuture future = this.serverBootstrap.bind(listenPort).sync();
-            LOGGER.info("Server started, listen port: {}", listenPort);
+            List<ChannelFuture> futures = new ArrayList<>(acceptorCount);
+            for (int i = 0; i < acceptorCount; i++) {
+                futures.add(this.serverBootstrap.bind(listenPort).sync());
+            }
+            LOGGER.info("Server started, listen port: {}, acceptors: {}", listenPort, acceptorCount);
             //将seata服务端注册到 配置文件中配置的 注册中心  比如 eureka  nacos  redis etcd 等
             RegistryFactory.getInstance().register(new InetSocketAddress(XID.getIpAddress(), XID.getPort()));
             initialized.set(true);
-            future.channel().closeFuture().sync();
+            for (ChannelFuture future : futures) {
+                future.channel().closeFuture().sync();
+            }
         } catch (Exception exx) {
             throw new RuntimeException(exx);
         }
@@ -167,6 +218,9 @@ public class NettyServerBootstrap implements RemotingBootstrap {
                 TimeUnit.SECONDS.sleep(nettyServerConfig.getServerShutdownWaitTime());
             }
 
+            if (idleChannelTracker != null) {
+                idleChannelTracker.shutdown();
+            }
             this.eventLoopGroupBoss.shutdownGracefully();
             this.eventLoopGroupWorker.shutdownGracefully();
         } catch (Exception exx) {
@@ -19,6 +19,8 @@ import com.gk.rpc.constants.ConfigurationKeys;
 import io.netty.channel.ServerChannel;
 import io.netty.channel.epoll.Epoll;
 import io.netty.channel.epoll.EpollServerSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static io.seata.DefaultValues.*;
 
@@ -29,6 +31,8 @@ import static io.seata.DefaultValues.*;
  */
 public class NettyServerConfig extends NettyBaseConfig {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(NettyServerConfig.class);
+
     private int serverSelectorThreads = Integer.parseInt(System.getProperty(
             ConfigurationKeys.TRANSPORT_PREFIX + "serverSelectorThreads", String.valueOf(WORKER_THREAD_SIZE)));
     private int serverSocketSendBufSize = Integer.parseInt(System.getProperty(
@@ -48,6 +52,8 @@ public class NettyServerConfig extends NettyBaseConfig {
     private int serverChannelMaxIdleTimeSeconds = Integer.parseInt(System.getProperty(
             ConfigurationKeys.TRANSPORT_PREFIX + "serverChannelMaxIdleTimeSeconds", String.valueOf(30)));
     private static final String EPOLL_WORKER_THREAD_PREFIX = "NettyServerEPollWorker";
+    private static final int DEFAULT_ACCEPTOR_COUNT = 1;
+    private static volatile boolean reusePortWarned = false;
     private static int minServerPoolSize = Integer.parseInt(System.getProperty(
             ConfigurationKeys.MIN_SERVER_POOL_SIZE, "50"));
     private static int maxServerPoolSize = Integer.parseInt(System.getProperty(
@@ -56,6 +62,8 @@ public class NettyServerConfig extends NettyBaseConfig {
             ConfigurationKeys.MAX_TASK_QUEUE_SIZE, "20000"));
     private static int keepAliveTime = Integer.parseInt(System.getProperty(
             ConfigurationKeys.KEEP_ALIVE_TIME, "500"));
+    private static int rpcTimeoutTickMillis = Integer.parseInt(System.getProperty(
+            ConfigurationKeys.RPC_TIMEOUT_TICK_MILLIS, "5"));
 
     /**
      * The Server channel clazz.
@@ -236,6 +244,15 @@ public class NettyServerConfig extends NettyBaseConfig {
         return RPC_REQUEST_TIMEOUT;
     }
 
+    /**
+     * Gets the tick of the request timeout wheel, a timeout fires at most one tick late.
+     *
+     * @return the tick in milliseconds
+     */
+    public static int getRpcTimeoutTickMillis() {
+        return rpcTimeoutTickMillis;
+    }
+
     /**
      * Get boss thread prefix string.
      *
@@ -271,7 +288,85 @@ public class NettyServerConfig extends NettyBaseConfig {
      * @return the int
      */
     public int getBossThreadSize() {
-        return CONFIG.getInt(ConfigurationKeys.BOSS_THREAD_SIZE, DEFAULT_BOSS_THREAD_SIZE);
+        int bossThreadSize = CONFIG.getInt(ConfigurationKeys.BOSS_THREAD_SIZE, DEFAULT_BOSS_THREAD_SIZE);
+        // every acceptor gets an event loop of its own
+        return Math.max(bossThreadSize, getAcceptorCount());
+    }
+
+    /**
+     * Whether flushes of a channel are coalesced.
+     *
+     * @return the boolean
+     * @see WriteCoalescingHandler
+     */
+    public boolean isWriteCoalescingEnabled() {
+        return CONFIG.getBoolean(ConfigurationKeys.WRITE_COALESCING_ENABLE, false);
+    }
+
+    /**
+     * Whether read idle channels are detected by one {@link IdleChannelTracker} shared by all
+     * channels, instead of an IdleStateHandler per channel.
+     *
+     * @return true if enabled
+     */
+    public boolean isIdleTrackerEnabled() {
+        return CONFIG.getBoolean(ConfigurationKeys.IDLE_TRACKER_ENABLE, false);
+    }
+
+    /**
+     * Get the number of buckets of the idle tracker wheel, one is swept per tick.
+     *
+     * @return the bucket count
+     */
+    public int getIdleTrackerBuckets() {
+        return CONFIG.getInt(ConfigurationKeys.IDLE_TRACKER_BUCKETS, 64);
+    }
+
+    /**
+     * Get the most idle channels signalled per tick of the idle tracker.
+     *
+     * @return the batch size
+     */
+    public int getIdleTrackerCloseBatchSize() {
+        return CONFIG.getInt(ConfigurationKeys.IDLE_TRACKER_CLOSE_BATCH_SIZE, 256);
+    }
+
+    /**
+     * Whether a v1 heartbeat PING is answered by the frame decoder with a cached PONG frame, instead
+     * of going through the processors and the encoder.
+     *
+     * @return true if enabled
+     */
+    public boolean isHeartbeatFastPathEnabled() {
+        return CONFIG.getBoolean(ConfigurationKeys.HEARTBEAT_FAST_PATH, false);
+    }
+
+    /**
+     * Get the window flushes are coalesced in, 0 coalesces within one event loop tick.
+     *
+     * @return the window in microseconds
+     */
+    public long getWriteCoalescingWindowMicros() {
+        return CONFIG.getLong(ConfigurationKeys.WRITE_COALESCING_WINDOW_MICROS, 0L);
+    }
+
+    /**
+     * Get the number of listening sockets bound to the server port. More than one needs SO_REUSEPORT,
+     * which is only supported by the epoll transport.
+     *
+     * @return the acceptor count
+     */
+    public int getAcceptorCount() {
+        int acceptorCount = CONFIG.getInt(ConfigurationKeys.SERVER_ACCEPTOR_COUNT, DEFAULT_ACCEPTOR_COUNT);
+        if (acceptorCount > 1 && !enableEpoll()) {
+            if (!reusePortWarned) {
+                reusePortWarned = true;
+                LOGGER.warn("{} = {} needs the epoll transport, only one acceptor is used",
+                    ConfigurationKeys.SERVER_ACCEPTOR_COUNT, acceptorCount);
+            }
+            return DEFAULT_ACCEPTOR_COUNT;
+        }
+        return Math.max(acceptorCount, DEFAULT_ACCEPTOR_COUNT);
     }
 
     /**
@@ -298,4 +393,23 @@ public class NettyServerConfig extends NettyBaseConfig {
     public static int getKeepAliveTime() {
         return keepAliveTime;
     }
+
+    /**
+     * Whether processor tasks run on virtual threads, which needs JDK 21 or later.
+     *
+     * @return the boolean
+     * @see VirtualThreadExecutor
+     */
+    public static boolean isVirtualThreadsEnabled() {
+        return CONFIG.getBoolean(ConfigurationKeys.VIRTUAL_THREADS_ENABLE, false);
+    }
+
+    /**
+     * Get the number of processor tasks running at once on virtual threads.
+     *
+     * @return the max concurrency
+     */
+    public static int getVirtualThreadsMaxConcurrency() {
+        return CONFIG.getInt(ConfigurationKeys.VIRTUAL_THREADS_MAX_CONCURRENCY, maxServerPoolSize);
+    }
 }
@@ -0,0 +1,53 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty;
+
+/**
+ * What a sender does when the outbound queue of a channel is full.
+ *
+ * @see ChannelOutboundQueue
+ */
+public enum OutboundQueuePolicy {
+    /**
+     * Wait until the queue has room, up to the configured timeout, then throw to the sender. Senders
+     * on the event loop never wait, they fail fast.
+     */
+    BLOCK,
+    /**
+     * Throw to the sender at once.
+     */
+    FAIL_FAST,
+    /**
+     * Drop the message and count it. The sender does not see an exception, only the write future
+     * fails.
+     */
+    SHED;
+
+    /**
+     * Gets policy.
+     *
+     * @param name the name
+     * @return the policy
+     */
+    public static OutboundQueuePolicy getPolicy(String name) {
+        for (OutboundQueuePolicy policy : OutboundQueuePolicy.values()) {
+            if (policy.name().equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("unknown outbound queue policy:" + name);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty;
+
+import com.gk.rpc.protocol.MessageTypeAware;
+import com.gk.rpc.protocol.RpcMessage;
+import io.netty.channel.ChannelHandlerContext;
+import io.seata.exception.FrameworkErrorCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+/**
+ * A message queued for its processor's executor, recording how long it waited.
+ */
+final class ProcessTask implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProcessTask.class);
+
+    private final ProcessorTable.Entry entry;
+
+    private final AdmissionController admissionController;
+
+    private final ChannelHandlerContext ctx;
+
+    private final RpcMessage rpcMessage;
+
+    private final long enqueueNanos;
+
+    ProcessTask(ProcessorTable.Entry entry, AdmissionController admissionController, ChannelHandlerContext ctx,
+                RpcMessage rpcMessage) {
+        this(entry, admissionController, ctx, rpcMessage, System.nanoTime());
+    }
+
+    /**
+     * @param enqueueNanos when the message was queued, earlier than now for a message whose body was
+     *                     decoded on the executor first
+     */
+    ProcessTask(ProcessorTable.Entry entry, AdmissionController admissionController, ChannelHandlerContext ctx,
+                RpcMessage rpcMessage, long enqueueNanos) {
+        this.entry = entry;
+        this.admissionController = admissionController;
+        this.ctx = ctx;
+        this.rpcMessage = rpcMessage;
+        this.enqueueNanos = enqueueNanos;
+    }
+
+    @Override
+    public void run() {
+        long startNanos = System.nanoTime();
+        long queueWaitNanos = startNanos - enqueueNanos;
+        entry.onDequeued(queueWaitNanos);
+        try {
+            entry.getProcessor().process(ctx, rpcMessage);
+        } catch (Throwable th) {
+            LOGGER.error(FrameworkErrorCode.NetDispatch.getErrCode(), th.getMessage(), th);
+        } finally {
+            MDC.clear();
+            Object body = rpcMessage.getBody();
+            if (body instanceof MessageTypeAware) {
+                admissionController.record(((MessageTypeAware) body).getTypeCode(), queueWaitNanos,
+                    System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
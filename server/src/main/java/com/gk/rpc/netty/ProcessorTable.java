@@ -0,0 +1,153 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty;
+
+import com.gk.rpc.processor.RemotingProcessor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The processors of a remoting, in a dense array indexed by message type code.
+ * <p>
+ * Processors are registered while the remoting is built and the table is frozen at init, so the
+ * lookup per message is an array load without boxing the type code. Each entry carries its own
+ * counters, which show whether a type is starved or should get a dedicated executor.
+ */
+public final class ProcessorTable {
+
+    private static final int TABLE_SIZE = 256;
+
+    private final Entry[] entries = new Entry[TABLE_SIZE];
+
+    private volatile Entry[] frozen;
+
+    /**
+     * Register a processor, replacing any processor registered for the type.
+     *
+     * @param messageType the message type code
+     * @param processor   the processor
+     * @param executor    the executor, null to process on the event loop
+     * @throws IllegalStateException if the table is frozen
+     */
+    public void register(int messageType, RemotingProcessor processor, ExecutorService executor) {
+        if (messageType < 0 || messageType >= TABLE_SIZE) {
+            throw new IllegalArgumentException("message type out of range: " + messageType);
+        }
+        if (frozen != null) {
+            throw new IllegalStateException("processors can not be registered after init, type: " + messageType);
+        }
+        entries[messageType] = new Entry(messageType, processor, executor);
+    }
+
+    /**
+     * Freeze the table, later registrations fail.
+     */
+    public void freeze() {
+        if (frozen == null) {
+            frozen = entries.clone();
+        }
+    }
+
+    /**
+     * Gets the entry of a message type.
+     *
+     * @param messageType the message type code
+     * @return the entry, null if no processor is registered
+     */
+    public Entry get(int messageType) {
+        Entry[] table = frozen;
+        if (table == null) {
+            table = entries;
+        }
+        return messageType >= 0 && messageType < TABLE_SIZE ? table[messageType] : null;
+    }
+
+    /**
+     * A registered processor with its executor and counters.
+     */
+    public static final class Entry {
+
+        private final int messageType;
+
+        private final RemotingProcessor processor;
+
+        private final ExecutorService executor;
+
+        private final LongAdder dispatched = new LongAdder();
+
+        private final LongAdder rejected = new LongAdder();
+
+        private final LongAdder queueWaitNanos = new LongAdder();
+
+        private Entry(int messageType, RemotingProcessor processor, ExecutorService executor) {
+            this.messageType = messageType;
+            this.processor = processor;
+            this.executor = executor;
+        }
+
+        public int getMessageType() {
+            return messageType;
+        }
+
+        public RemotingProcessor getProcessor() {
+            return processor;
+        }
+
+        public ExecutorService getExecutor() {
+            return executor;
+        }
+
+        /**
+         * Gets the number of messages handed to the processor or its executor.
+         *
+         * @return the dispatched count
+         */
+        public long getDispatchedCount() {
+            return dispatched.sum();
+        }
+
+        /**
+         * Gets the number of messages the executor rejected.
+         *
+         * @return the rejected count
+         */
+        public long getRejectedCount() {
+            return rejected.sum();
+        }
+
+        /**
+         * Gets the total time messages waited in the executor queue before being processed.
+         *
+         * @return the wait time in nanoseconds
+         */
+        public long getQueueWaitNanos() {
+            return queueWaitNanos.sum();
+        }
+
+        void onDispatched() {
+            dispatched.increment();
+        }
+
+        void onRejected() {
+            rejected.increment();
+        }
+
+        void onDequeued(long waitNanos) {
+            queueWaitNanos.add(waitNanos);
+        }
+    }
+}
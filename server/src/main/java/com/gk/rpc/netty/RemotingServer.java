@@ -18,7 +18,10 @@ package com.gk.rpc.netty;
 import com.gk.rpc.processor.RemotingProcessor;
 import com.gk.rpc.protocol.RpcMessage;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
 
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeoutException;
 
@@ -41,6 +44,16 @@ public interface RemotingServer {
      */
     Object sendSyncRequest(String resourceId, String clientId, Object msg) throws TimeoutException;
 
+    /**
+     * server send request without blocking, for sending many branch commits or rollbacks at once.
+     *
+     * @param resourceId rm client resourceId
+     * @param clientId   rm client id
+     * @return stage of the client result message, completed exceptionally with a
+     * {@link TimeoutException} when the client does not answer in time
+     */
+    CompletionStage<Object> sendRequestAsync(String resourceId, String clientId, Object msg);
+
     /**
      * server send sync request.
      *
@@ -65,6 +78,26 @@ public interface RemotingServer {
      */
     void sendAsyncResponse(RpcMessage rpcMessage, Channel channel, Object msg);
 
+    /**
+     * server send async response with head map.
+     *
+     * @param rpcMessage rpc message from client request
+     * @param channel    client channel
+     * @param headMap    head map of the response
+     */
+    void sendAsyncResponse(RpcMessage rpcMessage, Channel channel, Object msg, Map<String, String> headMap);
+
+    /**
+     * server send async response with head map, the listener is notified once the response was written.
+     *
+     * @param rpcMessage rpc message from client request
+     * @param channel    client channel
+     * @param headMap    head map of the response
+     * @param listener   listener of the write, never run for a response merged into a batch
+     */
+    void sendAsyncResponse(RpcMessage rpcMessage, Channel channel, Object msg, Map<String, String> headMap,
+                           ChannelFutureListener listener);
+
     /**
      * register processor
      *
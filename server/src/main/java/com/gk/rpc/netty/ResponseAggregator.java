@@ -0,0 +1,220 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty;
+
+import com.gk.rpc.constants.ConfigurationKeys;
+import com.gk.rpc.protocol.AbstractResultMessage;
+import com.gk.rpc.protocol.BatchResultMessage;
+import com.gk.rpc.protocol.ProtocolConstants;
+import com.gk.rpc.protocol.RpcMessage;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.netty.util.internal.PlatformDependent;
+import io.seata.core.Configuration;
+import io.seata.core.ConfigurationFactory;
+import io.seata.exception.FrameworkException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the responses to one channel and sends them as one {@link BatchResultMessage}.
+ * <p>
+ * Processor threads offer responses to a multi-producer queue; the event loop of the channel drains
+ * it once {@code transport.responseBatch.windowMicros} passed since the first response, or at once
+ * when {@code transport.responseBatch.maxSize} responses are waiting. A lone response goes out as a
+ * plain response. Only channels whose client negotiated {@link ProtocolConstants#HEAD_BATCH_RESPONSE}
+ * at registration get an aggregator.
+ */
+public final class ResponseAggregator {
+
+    /**
+     * Set on channels which negotiated batched responses.
+     */
+    public static final AttributeKey<Boolean> BATCH_OUTBOUND = AttributeKey.valueOf("batchResponseOutbound");
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResponseAggregator.class);
+
+    private static final AttributeKey<ResponseAggregator> AGGREGATOR_KEY = AttributeKey.valueOf("responseAggregator");
+
+    private static final Configuration CONFIG = ConfigurationFactory.getInstance();
+
+    private static final long WINDOW_NANOS = TimeUnit.MICROSECONDS.toNanos(
+        CONFIG.getLong(ConfigurationKeys.RESPONSE_BATCH_WINDOW_MICROS, 200L));
+
+    static final int MAX_SIZE = Math.max(CONFIG.getInt(ConfigurationKeys.RESPONSE_BATCH_MAX_SIZE, 32), 1);
+
+    private static final LongAdder BATCHES = new LongAdder();
+
+    private static final LongAdder BATCHED_RESPONSES = new LongAdder();
+
+    private final Channel channel;
+
+    private final AbstractNettyRemoting remoting;
+
+    private final Queue<PendingResponse> queue = PlatformDependent.newMpscQueue();
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicBoolean timedFlushScheduled = new AtomicBoolean(false);
+
+    private final AtomicBoolean flushQueued = new AtomicBoolean(false);
+
+    private final Runnable flushTask = this::flush;
+
+    private ResponseAggregator(Channel channel, AbstractNettyRemoting remoting) {
+        this.channel = channel;
+        this.remoting = remoting;
+    }
+
+    /**
+     * Gets the aggregator of a channel which negotiated batched responses.
+     *
+     * @param channel  the channel
+     * @param remoting the remoting sending the batches
+     * @return the aggregator, null if the channel did not negotiate batched responses
+     */
+    static ResponseAggregator of(Channel channel, AbstractNettyRemoting remoting) {
+        if (!Boolean.TRUE.equals(channel.attr(BATCH_OUTBOUND).get())) {
+            return null;
+        }
+        ResponseAggregator aggregator = channel.attr(AGGREGATOR_KEY).get();
+        if (aggregator == null) {
+            ResponseAggregator created = new ResponseAggregator(channel, remoting);
+            aggregator = channel.attr(AGGREGATOR_KEY).setIfAbsent(created);
+            if (aggregator == null) {
+                aggregator = created;
+            }
+        }
+        return aggregator;
+    }
+
+    /**
+     * Gets the number of batches sent.
+     *
+     * @return the batch count
+     */
+    public static long getBatchCount() {
+        return BATCHES.sum();
+    }
+
+    /**
+     * Gets the number of responses sent inside batches.
+     *
+     * @return the batched response count
+     */
+    public static long getBatchedResponseCount() {
+        return BATCHED_RESPONSES.sum();
+    }
+
+    /**
+     * Queue the response to a request.
+     *
+     * @param request the request
+     * @param result  the result
+     */
+    void offer(RpcMessage request, AbstractResultMessage result) {
+        queue.offer(new PendingResponse(request.getId(), request.getCodec(), request.getCompressor(), result));
+        if (pending.incrementAndGet() >= MAX_SIZE) {
+            if (flushQueued.compareAndSet(false, true)) {
+                channel.eventLoop().execute(flushTask);
+            }
+        } else if (timedFlushScheduled.compareAndSet(false, true)) {
+            channel.eventLoop().schedule(flushTask, WINDOW_NANOS, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flush() {
+        // reset before draining, a response offered after this point schedules another flush
+        flushQueued.set(false);
+        timedFlushScheduled.set(false);
+        List<PendingResponse> batch = new ArrayList<>(MAX_SIZE);
+        PendingResponse next;
+        while ((next = queue.poll()) != null) {
+            pending.decrementAndGet();
+            if (!batch.isEmpty() && (batch.size() >= MAX_SIZE || !batch.get(0).sameEncoding(next))) {
+                send(batch);
+                batch = new ArrayList<>(MAX_SIZE);
+            }
+            batch.add(next);
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private void send(List<PendingResponse> batch) {
+        PendingResponse first = batch.get(0);
+        RpcMessage rpcMessage = new RpcMessage();
+        rpcMessage.setMessageType(ProtocolConstants.MSGTYPE_RESPONSE);
+        rpcMessage.setCodec(first.codec);
+        rpcMessage.setCompressor(first.compressor);
+        if (batch.size() == 1) {
+            rpcMessage.setId(first.id);
+            rpcMessage.setBody(first.result);
+        } else {
+            List<AbstractResultMessage> results = new ArrayList<>(batch.size());
+            List<Integer> msgIds = new ArrayList<>(batch.size());
+            for (PendingResponse response : batch) {
+                results.add(response.result);
+                msgIds.add(response.id);
+            }
+            BatchResultMessage batchResultMessage = new BatchResultMessage();
+            batchResultMessage.setResultMessages(results);
+            batchResultMessage.setMsgIds(msgIds);
+            rpcMessage.setId(remoting.getNextMessageId());
+            rpcMessage.setBody(batchResultMessage);
+            BATCHES.increment();
+            BATCHED_RESPONSES.add(batch.size());
+        }
+        try {
+            remoting.sendAsync(channel, rpcMessage);
+        } catch (FrameworkException e) {
+            // the outbound queue is full: drop this batch and keep draining, its requests time out
+            LOGGER.error("send batched responses error: {}, count: {}, channel: {}", e.getMessage(), batch.size(),
+                channel);
+        }
+    }
+
+    private static final class PendingResponse {
+
+        private final int id;
+
+        private final byte codec;
+
+        private final byte compressor;
+
+        private final AbstractResultMessage result;
+
+        private PendingResponse(int id, byte codec, byte compressor, AbstractResultMessage result) {
+            this.id = id;
+            this.codec = codec;
+            this.compressor = compressor;
+            this.result = result;
+        }
+
+        private boolean sameEncoding(PendingResponse other) {
+            return codec == other.codec && compressor == other.compressor;
+        }
+    }
+}
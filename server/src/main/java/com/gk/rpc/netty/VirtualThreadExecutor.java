@@ -0,0 +1,191 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs each task on its own virtual thread, JDK 21 or later.
+ * <p>
+ * Concurrency is bounded by a semaphore rather than a thread count: a task waiting for a permit is a
+ * parked virtual thread, which costs a few hundred bytes instead of a platform thread, so blocking
+ * store calls no longer tie up the pool. Tasks beyond the permits plus the queue capacity are
+ * rejected like a full pool. Thread locals do not outlive a task here, so per-thread caches such as
+ * the Kryo instance are rebuilt by every task that touches them.
+ * <p>
+ * The JDK 21 API is only reached through reflection, so the server still builds and runs on Java 8;
+ * check {@link #isAvailable()} first.
+ */
+public final class VirtualThreadExecutor extends AbstractExecutorService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadExecutor.class);
+
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    private static final Method OF_VIRTUAL;
+
+    private static final Method NAME;
+
+    private static final Method FACTORY;
+
+    private static final Throwable UNAVAILABILITY_CAUSE;
+
+    static {
+        Method newThreadPerTaskExecutor = null;
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        Throwable cause = null;
+        try {
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = Class.forName("java.lang.Thread$Builder").getMethod("name", String.class, long.class);
+            factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+        } catch (Throwable t) {
+            cause = t;
+            newThreadPerTaskExecutor = null;
+        }
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        UNAVAILABILITY_CAUSE = cause;
+    }
+
+    private final ExecutorService delegate;
+
+    private final Semaphore permits;
+
+    private final int maxConcurrency;
+
+    private final int maxPending;
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Instantiates a new executor.
+     *
+     * @param namePrefix     the thread name prefix
+     * @param maxConcurrency the number of tasks running at once
+     * @param queueCapacity  the number of tasks waiting for a permit
+     * @throws IllegalStateException if virtual threads are not available
+     */
+    public VirtualThreadExecutor(String namePrefix, int maxConcurrency, int queueCapacity) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("virtual threads are not available", UNAVAILABILITY_CAUSE);
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix + "_", 0L);
+            this.delegate = (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, FACTORY.invoke(builder));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("create virtual thread executor error", e);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.maxPending = maxConcurrency + queueCapacity;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * Whether virtual threads can be used.
+     *
+     * @return true if available
+     */
+    public static boolean isAvailable() {
+        return NEW_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Log why virtual threads are not used.
+     */
+    public static void logFallback() {
+        LOGGER.warn("virtual threads are not available, use the thread pool instead. cause: {}",
+            UNAVAILABILITY_CAUSE == null ? "unknown" : UNAVAILABILITY_CAUSE.toString());
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            throw new RejectedExecutionException("virtual thread executor is full, " + this);
+        }
+        try {
+            delegate.execute(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                    pending.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of tasks submitted and not yet finished.
+     *
+     * @return the pending count
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualThreadExecutor[running = " + (maxConcurrency - permits.availablePermits())
+            + ", pending = " + pending.get() + ", maxConcurrency = " + maxConcurrency + "]";
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty;
+
+import com.gk.rpc.protocol.ProtocolConstants;
+import com.gk.rpc.protocol.RpcMessage;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Merges the flushes of a channel so a burst of writes reaches the transport with one flush.
+ * <p>
+ * A flush requested while the channel is reading is done once the read completes. Any other flush is
+ * deferred to a task queued behind the writes already submitted to the event loop, or, with a
+ * positive window, to a task scheduled that many microseconds later. Only one-way requests are
+ * deferred: sync requests, responses and heartbeats have a peer waiting on them, so they flush at
+ * once together with anything pending.
+ */
+public class WriteCoalescingHandler extends ChannelDuplexHandler {
+
+    private static final LongAdder REQUESTED_FLUSHES = new LongAdder();
+
+    private static final LongAdder ACTUAL_FLUSHES = new LongAdder();
+
+    private final long windowNanos;
+
+    private final Runnable flushTask = this::scheduledFlush;
+
+    private ChannelHandlerContext ctx;
+
+    private boolean readInProgress;
+
+    private boolean flushPending;
+
+    private boolean flushScheduled;
+
+    private boolean bypassPending;
+
+    public WriteCoalescingHandler(long windowMicros) {
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(windowMicros, 0));
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof RpcMessage && isLatencyCritical(((RpcMessage) msg).getMessageType())) {
+            bypassPending = true;
+        }
+        ctx.write(msg, promise);
+    }
+
+    private static boolean isLatencyCritical(byte messageType) {
+        return messageType != ProtocolConstants.MSGTYPE_RESQUEST_ONEWAY;
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        REQUESTED_FLUSHES.increment();
+        flushPending = true;
+        if (bypassPending) {
+            flushNow(ctx);
+        } else if (!readInProgress && !flushScheduled) {
+            flushScheduled = true;
+            if (windowNanos > 0) {
+                ctx.executor().schedule(flushTask, windowNanos, TimeUnit.NANOSECONDS);
+            } else {
+                ctx.executor().execute(flushTask);
+            }
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        readInProgress = true;
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        readInProgress = false;
+        flushIfPending(ctx);
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        if (!ctx.channel().isWritable()) {
+            // push out what is buffered so the channel can become writable again
+            flushIfPending(ctx);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushIfPending(ctx);
+        ctx.close(promise);
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushIfPending(ctx);
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        flushIfPending(ctx);
+    }
+
+    private void scheduledFlush() {
+        flushScheduled = false;
+        if (!readInProgress) {
+            flushIfPending(ctx);
+        }
+    }
+
+    private void flushIfPending(ChannelHandlerContext ctx) {
+        if (flushPending) {
+            flushNow(ctx);
+        }
+    }
+
+    private void flushNow(ChannelHandlerContext ctx) {
+        flushPending = false;
+        bypassPending = false;
+        ACTUAL_FLUSHES.increment();
+        ctx.flush();
+    }
+
+    /**
+     * Gets the number of flushes requested by the writers of all channels.
+     *
+     * @return the count
+     */
+    public static long getRequestedFlushCount() {
+        return REQUESTED_FLUSHES.sum();
+    }
+
+    /**
+     * Gets the number of flushes passed on to the transport of all channels.
+     *
+     * @return the count
+     */
+    public static long getActualFlushCount() {
+        return ACTUAL_FLUSHES.sum();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty.v1;
+
+import com.gk.rpc.compressor.Compressor;
+import com.gk.rpc.compressor.CompressorFactory;
+import com.gk.rpc.compressor.CompressorType;
+import com.gk.rpc.compressor.ZstdDictionaryHolder;
+import com.gk.rpc.protocol.ProtocolConstants;
+import com.gk.rpc.protocol.RpcMessage;
+import com.gk.rpc.serializer.Serializer;
+import com.gk.rpc.serializer.SerializerFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+
+/**
+ * Serializes and compresses message bodies, shared by all protocol versions.
+ */
+public final class BodyCodec {
+
+    private BodyCodec() {
+    }
+
+    /**
+     * Serialize and compress the body straight into the output buffer.
+     * <p>
+     * Bodies below {@link ProtocolConstants#CONFIGURED_COMPRESS_THRESHOLD} are written uncompressed
+     * and the compressor byte of this message is rewritten to {@link CompressorType#NONE}. A
+     * {@link CompressorType#ZSTD_DICT} body is compressed with plain {@link CompressorType#ZSTD} unless
+     * the peer confirmed to own the active dictionary.
+     *
+     * @param ctx             the channel handler context
+     * @param rpcMessage      the rpc message
+     * @param out             the output buffer
+     * @param compressorIndex index of the compressor byte of this message in the output buffer
+     * @return length of body bytes
+     */
+    public static int encode(ChannelHandlerContext ctx, RpcMessage rpcMessage, ByteBuf out, int compressorIndex) {
+        return encode(ctx, rpcMessage, out, compressorIndex, ProtocolConstants.CONFIGURED_COMPRESS_THRESHOLD);
+    }
+
+    static int encode(ChannelHandlerContext ctx, RpcMessage rpcMessage, ByteBuf out, int compressorIndex,
+                      int compressThreshold) {
+        int start = out.writerIndex();
+        Serializer serializer = SerializerFactory.getSerializer(rpcMessage.getCodec());
+        if (rpcMessage.getCompressor() == CompressorType.NONE.getCode()) {
+            serializer.serialize(rpcMessage.getBody(), out);
+        } else {
+            ByteBuf raw = ctx.alloc().ioBuffer(EncodedSizeEstimator.estimate(rpcMessage.getBody()));
+            try {
+                serializer.serialize(rpcMessage.getBody(), raw);
+                byte compressor = rpcMessage.getCompressor();
+                if (raw.readableBytes() < compressThreshold) {
+                    out.writeBytes(raw);
+                    out.setByte(compressorIndex, CompressorType.NONE.getCode());
+                    return out.writerIndex() - start;
+                }
+                if (compressor == CompressorType.ZSTD_DICT.getCode()
+                        && !ZstdDictionaryHolder.getInstance().isConfirmed(ctx.channel())) {
+                    // the peer may not own the dictionary, keep feeding the training from its bodies
+                    ZstdDictionaryHolder.getInstance().offerSample(raw);
+                    compressor = CompressorType.ZSTD.getCode();
+                    out.setByte(compressorIndex, compressor);
+                }
+                CompressorFactory.getCompressor(compressor).compress(raw, out);
+            } finally {
+                raw.release();
+            }
+        }
+        return out.writerIndex() - start;
+    }
+
+    /**
+     * Decompress and deserialize a body, streaming straight from the frame without an intermediate byte[].
+     *
+     * @param codec      the codec byte of the message
+     * @param compressor the compressor byte of the message
+     * @param in         the body bytes, all readable bytes are consumed, the caller keeps the ownership
+     * @return the body
+     */
+    public static Object decode(byte codec, byte compressor, ByteBuf in) {
+        int size = in.readableBytes();
+        long start = System.nanoTime();
+        Compressor decompressor = CompressorFactory.getCompressor(compressor);
+        ByteBuf body = decompressor.decompress(in);
+        try {
+            Serializer serializer = SerializerFactory.getSerializer(codec);
+            return serializer.deserialize(body);
+        } finally {
+            body.release();
+            BodyDecodeMetrics.record(size, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Decode a body on the spot, or defer it as a {@link LazyBody} when it is at least
+     * {@link ProtocolConstants#CONFIGURED_DECODE_OFFLOAD_THRESHOLD} bytes.
+     *
+     * @param codec      the codec byte of the message
+     * @param compressor the compressor byte of the message
+     * @param frame      the frame, positioned at the body
+     * @param bodyLength the body length, these bytes are consumed from the frame
+     * @return the body, or a {@link LazyBody}
+     */
+    public static Object decodeOrDefer(byte codec, byte compressor, ByteBuf frame, int bodyLength) {
+        int threshold = ProtocolConstants.CONFIGURED_DECODE_OFFLOAD_THRESHOLD;
+        if (threshold > 0 && bodyLength >= threshold) {
+            return new LazyBody(codec, compressor, frame.readRetainedSlice(bodyLength));
+        }
+        return decode(codec, compressor, frame.readSlice(bodyLength));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty.v1;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Body decode latency by encoded body size, used to tune
+ * {@link com.gk.rpc.protocol.ProtocolConstants#CONFIGURED_DECODE_OFFLOAD_THRESHOLD}.
+ * <p>
+ * Bucket i holds bodies smaller than {@code 1K << (2 * i)}: 1K, 4K, 16K, 64K, 256K, 1M, the last
+ * bucket holds everything larger.
+ */
+public final class BodyDecodeMetrics {
+
+    private static final int MIN_BUCKET_SHIFT = 10;
+
+    /**
+     * Number of buckets.
+     */
+    public static final int BUCKETS = 7;
+
+    private static final LongAdder[] COUNTS = new LongAdder[BUCKETS];
+
+    private static final LongAdder[] NANOS = new LongAdder[BUCKETS];
+
+    static {
+        for (int i = 0; i < BUCKETS; i++) {
+            COUNTS[i] = new LongAdder();
+            NANOS[i] = new LongAdder();
+        }
+    }
+
+    private BodyDecodeMetrics() {
+    }
+
+    /**
+     * Record one decode.
+     *
+     * @param size  the encoded body size
+     * @param nanos the decode time
+     */
+    public static void record(int size, long nanos) {
+        int bucket = bucketOf(size);
+        COUNTS[bucket].increment();
+        NANOS[bucket].add(nanos);
+    }
+
+    /**
+     * Gets the bucket of a body size.
+     *
+     * @param size the encoded body size
+     * @return the bucket
+     */
+    public static int bucketOf(int size) {
+        int bucket = 0;
+        int limit = 1 << MIN_BUCKET_SHIFT;
+        while (size >= limit && bucket < BUCKETS - 1) {
+            bucket++;
+            limit <<= 2;
+        }
+        return bucket;
+    }
+
+    /**
+     * Gets the upper size bound of a bucket.
+     *
+     * @param bucket the bucket
+     * @return the exclusive upper bound in bytes, Integer.MAX_VALUE for the last bucket
+     */
+    public static int upperBound(int bucket) {
+        return bucket >= BUCKETS - 1 ? Integer.MAX_VALUE : 1 << (MIN_BUCKET_SHIFT + 2 * bucket);
+    }
+
+    public static long getCount(int bucket) {
+        return COUNTS[bucket].sum();
+    }
+
+    public static long getTotalNanos(int bucket) {
+        return NANOS[bucket].sum();
+    }
+
+    /**
+     * Gets the mean decode time of a bucket.
+     *
+     * @param bucket the bucket
+     * @return the mean in nanoseconds, 0 when nothing was recorded
+     */
+    public static long getMeanNanos(int bucket) {
+        long count = getCount(bucket);
+        return count == 0 ? 0 : getTotalNanos(bucket) / count;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty.v1;
+
+import com.gk.rpc.protocol.MessageTypeAware;
+import com.gk.rpc.protocol.ProtocolConstants;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Running estimate of the encoded frame size per message type.
+ * <p>
+ * The estimate jumps up to the largest size seen and decays slowly (1/8 per frame) toward smaller
+ * frames, so the encoder allocates a right-sized output buffer the first time in the common case.
+ * Shared by all channels; updates may race, which only costs an occasional buffer expansion.
+ */
+public final class EncodedSizeEstimator {
+
+    private static final int MAX_TYPE_CODE = 256;
+
+    private static final int DECAY_SHIFT = 3;
+
+    private static final int DEFAULT_ESTIMATE = 256;
+
+    private static final AtomicIntegerArray ESTIMATES = new AtomicIntegerArray(MAX_TYPE_CODE);
+
+    static {
+        for (int i = 0; i < MAX_TYPE_CODE; i++) {
+            ESTIMATES.set(i, DEFAULT_ESTIMATE);
+        }
+    }
+
+    private EncodedSizeEstimator() {
+    }
+
+    /**
+     * Gets the estimated frame size of the body.
+     *
+     * @param body the rpc message body
+     * @return the estimated size in bytes
+     */
+    public static int estimate(Object body) {
+        int index = indexOf(body);
+        return index < 0 ? DEFAULT_ESTIMATE : ESTIMATES.get(index);
+    }
+
+    /**
+     * Record the real encoded size of the body.
+     *
+     * @param body   the rpc message body
+     * @param actual the encoded frame size in bytes
+     */
+    public static void record(Object body, int actual) {
+        int index = indexOf(body);
+        if (index < 0) {
+            return;
+        }
+        int current = ESTIMATES.get(index);
+        int next = actual >= current ? actual : Math.max(actual, current - (current >> DECAY_SHIFT));
+        if (next != current) {
+            ESTIMATES.lazySet(index, Math.max(next, ProtocolConstants.V1_HEAD_LENGTH));
+        }
+    }
+
+    private static int indexOf(Object body) {
+        if (body instanceof MessageTypeAware) {
+            int typeCode = ((MessageTypeAware) body).getTypeCode();
+            if (typeCode >= 0 && typeCode < MAX_TYPE_CODE) {
+                return typeCode;
+            }
+        }
+        return -1;
+    }
+}
@@ -15,8 +15,11 @@
  */
 package com.gk.rpc.netty.v1;
 
+import com.gk.rpc.context.RootContext;
+import com.gk.rpc.protocol.ProtocolConstants;
 import com.gk.rpc.utils.Constants;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.AttributeKey;
 import io.seata.StringUtils;
 
 import java.util.HashMap;
@@ -24,12 +27,31 @@ import java.util.Map;
 
 /**
  * Common serializer of map (this generally refers to header).
+ * <p>
+ * Channels which negotiated {@link ProtocolConstants#HEAD_MAP_COMPACT} may use the compact encoding,
+ * flagged per frame by {@link ProtocolConstants#MSGTYPE_FLAG_COMPACT_HEAD_MAP}: an entry count, then
+ * every string as a short tag
+ * <ul>
+ * <li>{@code >= 0}: a literal of that many UTF-8 bytes</li>
+ * <li>{@code -1}: null</li>
+ * <li>{@code Short.MIN_VALUE}: a literal (short length + bytes) which is also added to the dynamic table</li>
+ * <li>otherwise: the string at index {@code -2 - tag} of the {@link HeadMapTable}</li>
+ * </ul>
  *
  * @author Geng Zhang
  * @since 0.7.0
  */
 public class HeadMapSerializer {
 
+    /**
+     * Set when the encoder of the channel writes the compact encoding.
+     */
+    public static final AttributeKey<Boolean> COMPACT_OUTBOUND = AttributeKey.valueOf("headMapCompactOutbound");
+
+    private static final short TAG_NULL = -1;
+
+    private static final short TAG_LITERAL_WITH_INDEXING = Short.MIN_VALUE;
+
     private static final HeadMapSerializer INSTANCE = new HeadMapSerializer();
 
     private HeadMapSerializer() {
@@ -63,6 +85,37 @@ public class HeadMapSerializer {
         return out.writerIndex() - start;
     }
 
+    /**
+     * encode head map with the compact encoding
+     *
+     * @param map   header map
+     * @param out   ByteBuf
+     * @param table the outbound table of the channel, null to use the plain encoding
+     * @return length of head map bytes
+     */
+    public int encode(Map<String, String> map, ByteBuf out, HeadMapTable table) {
+        if (table == null) {
+            return encode(map, out);
+        }
+        if (map == null || map.isEmpty() || out == null) {
+            return 0;
+        }
+        int start = out.writerIndex();
+        out.writeShort(0);
+        int count = 0;
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            String key = entry.getKey();
+            if (key != null) {
+                writeIndexed(out, key, table, true);
+                // xids are unique per transaction, indexing them would only evict reusable entries
+                writeIndexed(out, entry.getValue(), table, !RootContext.KEY_XID.equals(key));
+                count++;
+            }
+        }
+        out.setShort(start, count);
+        return out.writerIndex() - start;
+    }
+
     /**
      * decode head map
      *
@@ -85,6 +138,67 @@ public class HeadMapSerializer {
         return map;
     }
 
+    /**
+     * decode head map written with the compact encoding
+     *
+     * @param in     ByteBuf
+     * @param length of head map bytes
+     * @param table  the inbound table of the channel, null to use the plain encoding
+     * @return header map
+     */
+    public Map<String, String> decode(ByteBuf in, int length, HeadMapTable table) {
+        if (table == null) {
+            return decode(in, length);
+        }
+        if (in == null || in.readableBytes() == 0 || length == 0) {
+            return new ArrayHeadMap(0);
+        }
+        int tick = in.readerIndex();
+        int count = in.readUnsignedShort();
+        ArrayHeadMap map = new ArrayHeadMap(count);
+        for (int i = 0; i < count; i++) {
+            String key = readIndexed(in, table);
+            String value = readIndexed(in, table);
+            map.put(key, value);
+        }
+        if (in.readerIndex() - tick != length) {
+            throw new IllegalArgumentException("head map length mismatch, expect " + length + " but read "
+                + (in.readerIndex() - tick));
+        }
+        return map;
+    }
+
+    private void writeIndexed(ByteBuf out, String str, HeadMapTable table, boolean indexable) {
+        if (str == null) {
+            out.writeShort(TAG_NULL);
+            return;
+        }
+        int index = table.indexOf(str);
+        if (index >= 0) {
+            out.writeShort(-2 - index);
+        } else if (indexable && !str.isEmpty() && str.length() <= HeadMapTable.MAX_INDEXED_LENGTH) {
+            out.writeShort(TAG_LITERAL_WITH_INDEXING);
+            writeString(out, str);
+            table.add(str);
+        } else {
+            writeString(out, str);
+        }
+    }
+
+    private String readIndexed(ByteBuf in, HeadMapTable table) {
+        short tag = in.readShort();
+        if (tag == TAG_LITERAL_WITH_INDEXING) {
+            String str = readString(in);
+            table.add(str);
+            return str;
+        } else if (tag >= 0) {
+            return readString(in, tag);
+        } else if (tag == TAG_NULL) {
+            return null;
+        }
+        return table.get(-2 - tag);
+    }
+
     /**
      * Write string
      *
@@ -109,15 +223,16 @@ public class HeadMapSerializer {
      * @return String
      */
     protected String readString(ByteBuf in) {
-        int length = in.readShort();
+        return readString(in, in.readShort());
+    }
+
+    private String readString(ByteBuf in, int length) {
         if (length < 0) {
             return null;
         } else if (length == 0) {
             return StringUtils.EMPTY;
         } else {
-            byte[] value = new byte[length];
-            in.readBytes(value);
-            return new String(value, Constants.DEFAULT_CHARSET);
+            return in.readCharSequence(length, Constants.DEFAULT_CHARSET).toString();
         }
     }
 }
@@ -0,0 +1,149 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty.v1;
+
+import com.gk.rpc.context.RootContext;
+import com.gk.rpc.protocol.ProtocolConstants;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The index table of the compact head map encoding, in the spirit of HPACK.
+ * <p>
+ * Index 0 to {@code STATIC_TABLE.length - 1} are the well-known head keys, shared by all connections.
+ * The following {@link #DYNAMIC_CAPACITY} indexes are a per-connection, per-direction ring of recently
+ * sent strings: encoder and decoder insert the same strings in the same order, so both sides agree
+ * on every index without acknowledgements. Instances are confined to the channel's event loop.
+ */
+public final class HeadMapTable {
+
+    /**
+     * The well-known head keys, only append to the end, the index is part of the wire format.
+     */
+    private static final String[] STATIC_TABLE = {
+        RootContext.KEY_XID,
+        RootContext.KEY_BRANCH_TYPE,
+        RootContext.KEY_GLOBAL_LOCK_FLAG,
+        ProtocolConstants.HEAD_ZSTD_DICT_ID,
+        ProtocolConstants.HEAD_MAP_COMPACT,
+        Boolean.TRUE.toString(),
+        Boolean.FALSE.toString()
+    };
+
+    private static final Map<String, Integer> STATIC_INDEX = new HashMap<>();
+
+    /**
+     * Max number of dynamic entries.
+     */
+    static final int DYNAMIC_CAPACITY = 128;
+
+    /**
+     * Longer strings are always sent as plain literals.
+     */
+    static final int MAX_INDEXED_LENGTH = 64;
+
+    static {
+        for (int i = 0; i < STATIC_TABLE.length; i++) {
+            STATIC_INDEX.put(STATIC_TABLE[i], i);
+        }
+    }
+
+    private final String[] dynamicTable = new String[DYNAMIC_CAPACITY];
+
+    /**
+     * Reverse index of the dynamic table, only maintained on the encode side.
+     */
+    private final Map<String, Integer> dynamicIndex;
+
+    private int nextSlot;
+
+    private HeadMapTable(boolean encodeSide) {
+        this.dynamicIndex = encodeSide ? new HashMap<>(DYNAMIC_CAPACITY * 2) : null;
+    }
+
+    /**
+     * Create the table of an encoder.
+     *
+     * @return the table
+     */
+    public static HeadMapTable forEncoder() {
+        return new HeadMapTable(true);
+    }
+
+    /**
+     * Create the table of a decoder.
+     *
+     * @return the table
+     */
+    public static HeadMapTable forDecoder() {
+        return new HeadMapTable(false);
+    }
+
+    /**
+     * Find the index of a string, encode side only.
+     *
+     * @param value the string
+     * @return the index, -1 if the string is not in the table
+     */
+    int indexOf(String value) {
+        Integer index = STATIC_INDEX.get(value);
+        if (index == null) {
+            index = dynamicIndex.get(value);
+            if (index == null) {
+                return -1;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Get the string at an index, decode side only.
+     *
+     * @param index the index
+     * @return the string
+     */
+    String get(int index) {
+        if (index < STATIC_TABLE.length) {
+            return STATIC_TABLE[index];
+        }
+        int slot = index - STATIC_TABLE.length;
+        String value = slot < DYNAMIC_CAPACITY ? dynamicTable[slot] : null;
+        if (value == null) {
+            throw new IllegalArgumentException("invalid head map index: " + index);
+        }
+        return value;
+    }
+
+    /**
+     * Insert a string into the dynamic table, evicting the oldest entry when full.
+     *
+     * @param value the string
+     */
+    void add(String value) {
+        int slot = nextSlot;
+        nextSlot = (nextSlot + 1) % DYNAMIC_CAPACITY;
+        int index = STATIC_TABLE.length + slot;
+        if (dynamicIndex != null) {
+            String evicted = dynamicTable[slot];
+            if (evicted != null) {
+                dynamicIndex.remove(evicted, index);
+            }
+            dynamicIndex.put(value, index);
+        }
+        dynamicTable[slot] = value;
+    }
+}
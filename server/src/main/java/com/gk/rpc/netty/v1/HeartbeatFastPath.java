@@ -0,0 +1,102 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty.v1;
+
+import com.gk.rpc.protocol.ProtocolConstants;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+
+/**
+ * Answers a v1 heartbeat PING straight from the frame decoder.
+ * <p>
+ * A PONG frame is the same 16 bytes for every connection except the serializer, compressor and
+ * request id, which are copied from the PING. The frame is written from a cached template, without
+ * decoding the PING into an {@link com.gk.rpc.protocol.RpcMessage} or passing through the
+ * processors and the encoder. Only a plain PING takes this path: one carrying a head map is decoded,
+ * so the indexed entries it adds still reach the inbound head map table.
+ */
+final class HeartbeatFastPath {
+
+    /**
+     * Offset of the head length: magic code(2B) + version(1B) + full length(4B)
+     */
+    private static final int HEAD_LENGTH_OFFSET = 7;
+
+    /**
+     * Offset of the message type byte: magic code(2B) + version(1B) + full length(4B) + head length(2B)
+     */
+    private static final int MESSAGE_TYPE_OFFSET = 9;
+
+    /**
+     * Offset of the serializer byte, followed by the compressor byte and the request id.
+     */
+    private static final int CODEC_OFFSET = 10;
+
+    private static final int REQUEST_ID_OFFSET = 12;
+
+    private static final byte[] PONG_TEMPLATE = new byte[ProtocolConstants.V1_HEAD_LENGTH];
+
+    static {
+        PONG_TEMPLATE[0] = ProtocolConstants.MAGIC_CODE_BYTES[0];
+        PONG_TEMPLATE[1] = ProtocolConstants.MAGIC_CODE_BYTES[1];
+        PONG_TEMPLATE[2] = ProtocolConstants.VERSION;
+        // full length(4B) and head length(2B), a PONG has neither head map nor body
+        PONG_TEMPLATE[6] = ProtocolConstants.V1_HEAD_LENGTH;
+        PONG_TEMPLATE[8] = ProtocolConstants.V1_HEAD_LENGTH;
+        PONG_TEMPLATE[MESSAGE_TYPE_OFFSET] = ProtocolConstants.MSGTYPE_HEARTBEAT_RESPONSE;
+    }
+
+    private HeartbeatFastPath() {
+    }
+
+    /**
+     * Whether the frame is a heartbeat PING without a head map.
+     *
+     * @param frame a whole frame, from the magic code on
+     * @return true if it is a plain PING, false leaves any other frame to the regular decoding
+     */
+    static boolean isPing(ByteBuf frame) {
+        int start = frame.readerIndex();
+        if (frame.readableBytes() < ProtocolConstants.V1_HEAD_LENGTH
+                || ProtocolConstants.MAGIC_CODE_BYTES[0] != frame.getByte(start)
+                || ProtocolConstants.MAGIC_CODE_BYTES[1] != frame.getByte(start + 1)) {
+            return false;
+        }
+        return frame.getByte(start + MESSAGE_TYPE_OFFSET) == ProtocolConstants.MSGTYPE_HEARTBEAT_REQUEST
+            && frame.getUnsignedShort(start + HEAD_LENGTH_OFFSET) == ProtocolConstants.V1_HEAD_LENGTH;
+    }
+
+    /**
+     * Write the PONG of a PING frame.
+     * <p>
+     * The PONG is written from the decoder context, so it skips the handlers behind the decoder: the
+     * {@link com.gk.rpc.netty.WriteCoalescingHandler} would hold a frame it does not recognise, and
+     * a 16 byte answer a peer waits on is not worth queueing in a
+     * {@link com.gk.rpc.netty.ChannelOutboundQueue}.
+     *
+     * @param ctx   the context of the decoder
+     * @param frame the PING frame
+     */
+    static void writePong(ChannelHandlerContext ctx, ByteBuf frame) {
+        int start = frame.readerIndex();
+        ByteBuf pong = ctx.alloc().ioBuffer(ProtocolConstants.V1_HEAD_LENGTH);
+        pong.writeBytes(PONG_TEMPLATE);
+        // same serializer and compressor as the request, like the response built by the processor
+        pong.setShort(CODEC_OFFSET, frame.getShort(start + CODEC_OFFSET));
+        pong.setInt(REQUEST_ID_OFFSET, frame.getInt(start + REQUEST_ID_OFFSET));
+        ctx.writeAndFlush(pong, ctx.voidPromise());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty.v1;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A message body whose decoding was deferred from the IO thread to the thread processing the message.
+ * <p>
+ * Holds a retained slice of the frame until {@link #decode()} or {@link #release()} is called,
+ * exactly one of them must be called.
+ *
+ * @see BodyCodec#decodeOrDefer(byte, byte, ByteBuf, int)
+ */
+public final class LazyBody {
+
+    private final byte codec;
+
+    private final byte compressor;
+
+    private final int size;
+
+    private ByteBuf bytes;
+
+    LazyBody(byte codec, byte compressor, ByteBuf bytes) {
+        this.codec = codec;
+        this.compressor = compressor;
+        this.size = bytes.readableBytes();
+        this.bytes = bytes;
+    }
+
+    /**
+     * Decode the body and release the frame bytes.
+     *
+     * @return the body
+     */
+    public Object decode() {
+        ByteBuf in = take();
+        try {
+            return BodyCodec.decode(codec, compressor, in);
+        } finally {
+            in.release();
+        }
+    }
+
+    /**
+     * Release the frame bytes without decoding.
+     */
+    public void release() {
+        take().release();
+    }
+
+    /**
+     * Gets the encoded size of the body.
+     *
+     * @return the size in bytes
+     */
+    public int size() {
+        return size;
+    }
+
+    private ByteBuf take() {
+        ByteBuf in = bytes;
+        if (in == null) {
+            throw new IllegalStateException("body already decoded or released");
+        }
+        bytes = null;
+        return in;
+    }
+
+    @Override
+    public String toString() {
+        return "LazyBody{codec=" + codec + ", compressor=" + compressor + ", size=" + size + '}';
+    }
+}
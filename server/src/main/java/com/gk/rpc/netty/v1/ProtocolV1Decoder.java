@@ -15,17 +15,12 @@
  */
 package com.gk.rpc.netty.v1;
 
-import com.gk.rpc.compressor.Compressor;
-import com.gk.rpc.compressor.CompressorFactory;
 import com.gk.rpc.protocol.HeartbeatMessage;
 import com.gk.rpc.protocol.ProtocolConstants;
 import com.gk.rpc.protocol.RpcMessage;
-import com.gk.rpc.serializer.Serializer;
-import com.gk.rpc.serializer.SerializerType;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
-import io.seata.loader.EnhancedServiceLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,12 +57,26 @@ public class ProtocolV1Decoder extends LengthFieldBasedFrameDecoder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ProtocolV1Decoder.class);
 
+    /**
+     * The inbound head map table, created on the first frame using the compact head map encoding.
+     */
+    private HeadMapTable headMapTable;
+
+    /**
+     * Whether a PING is answered by the decoder itself, see {@link HeartbeatFastPath}.
+     */
+    private final boolean heartbeatFastPath;
+
     public ProtocolV1Decoder() {
         // default is 8M
         this(ProtocolConstants.MAX_FRAME_LENGTH);
     }
 
     public ProtocolV1Decoder(int maxFrameLength) {
+        this(maxFrameLength, false);
+    }
+
+    public ProtocolV1Decoder(int maxFrameLength, boolean heartbeatFastPath) {
         /*
         int maxFrameLength,      
         int lengthFieldOffset,  magic code is 2B, and version is 1B, and then FullLength. so value is 3
@@ -76,6 +85,7 @@ public class ProtocolV1Decoder extends LengthFieldBasedFrameDecoder {
         int initialBytesToStrip we will check magic code and version self, so do not strip any bytes. so values is 0
         */
         super(maxFrameLength, 3, 4, -7, 0);
+        this.heartbeatFastPath = heartbeatFastPath;
     }
 
     @Override
@@ -84,6 +94,10 @@ public class ProtocolV1Decoder extends LengthFieldBasedFrameDecoder {
         if (decoded instanceof ByteBuf) {
             ByteBuf frame = (ByteBuf) decoded;
             try {
+                if (heartbeatFastPath && HeartbeatFastPath.isPing(frame)) {
+                    HeartbeatFastPath.writePong(ctx, frame);
+                    return null;
+                }
                 return decodeFrame(frame);
             } catch (Exception e) {
                 LOGGER.error("Decode frame error!", e);
@@ -109,6 +123,8 @@ public class ProtocolV1Decoder extends LengthFieldBasedFrameDecoder {
         int fullLength = frame.readInt();
         short headLength = frame.readShort();
         byte messageType = frame.readByte();
+        boolean compactHeadMap = (messageType & ProtocolConstants.MSGTYPE_FLAG_COMPACT_HEAD_MAP) != 0;
+        messageType &= ~ProtocolConstants.MSGTYPE_FLAG_COMPACT_HEAD_MAP;
         byte codecType = frame.readByte();
         byte compressorType = frame.readByte();
         int requestId = frame.readInt();
@@ -122,8 +138,9 @@ public class ProtocolV1Decoder extends LengthFieldBasedFrameDecoder {
         // direct read head with zero-copy
         int headMapLength = headLength - ProtocolConstants.V1_HEAD_LENGTH;
         if (headMapLength > 0) {
-            Map<String, String> map = HeadMapSerializer.getInstance().decode(frame, headMapLength);
-            rpcMessage.getHeadMap().putAll(map);
+            Map<String, String> map = HeadMapSerializer.getInstance().decode(frame, headMapLength,
+                compactHeadMap ? headMapTable() : null);
+            rpcMessage.setHeadMap(map);
         }
 
         // read body
@@ -134,15 +151,17 @@ public class ProtocolV1Decoder extends LengthFieldBasedFrameDecoder {
         } else {
             int bodyLength = fullLength - headLength;
             if (bodyLength > 0) {
-                byte[] bs = new byte[bodyLength];
-                frame.readBytes(bs);
-                Compressor compressor = CompressorFactory.getCompressor(compressorType);
-                bs = compressor.decompress(bs);
-                Serializer serializer = EnhancedServiceLoader.load(Serializer.class, SerializerType.getByCode(rpcMessage.getCodec()).name());
-                rpcMessage.setBody(serializer.deserialize(bs));
+                rpcMessage.setBody(BodyCodec.decodeOrDefer(codecType, compressorType, frame, bodyLength));
             }
         }
 
         return rpcMessage;
     }
+
+    private HeadMapTable headMapTable() {
+        if (headMapTable == null) {
+            headMapTable = HeadMapTable.forDecoder();
+        }
+        return headMapTable;
+    }
 }
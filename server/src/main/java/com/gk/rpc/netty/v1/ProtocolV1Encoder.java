@@ -15,16 +15,12 @@
  */
 package com.gk.rpc.netty.v1;
 
-import com.gk.rpc.compressor.Compressor;
-import com.gk.rpc.compressor.CompressorFactory;
 import com.gk.rpc.protocol.ProtocolConstants;
 import com.gk.rpc.protocol.RpcMessage;
-import com.gk.rpc.serializer.Serializer;
-import com.gk.rpc.serializer.SerializerType;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.MessageToByteEncoder;
-import io.seata.loader.EnhancedServiceLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -61,8 +57,25 @@ public class ProtocolV1Encoder extends MessageToByteEncoder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ProtocolV1Encoder.class);
 
+    /**
+     * Offset of the message type byte: magic code(2B) + version(1B) + full length(4B) + head length(2B)
+     */
+    private static final int MESSAGE_TYPE_OFFSET = 9;
+
+    /**
+     * Offset of the compressor byte: magic code(2B) + version(1B) + full length(4B) + head length(2B)
+     * + message type(1B) + codec(1B)
+     */
+    private static final int COMPRESSOR_OFFSET = 11;
+
+    /**
+     * The outbound head map table, created once the channel negotiated the compact head map encoding.
+     */
+    private HeadMapTable headMapTable;
+
     @Override
     public void encode(ChannelHandlerContext ctx, Object msg, ByteBuf out) {
+        int frameStart = out.writerIndex();
         try {
             if (msg instanceof RpcMessage) {
                 RpcMessage rpcMessage = (RpcMessage) msg;
@@ -83,24 +96,20 @@ public class ProtocolV1Encoder extends MessageToByteEncoder {
                 // direct write head with zero-copy
                 Map<String, String> headMap = rpcMessage.getHeadMap();
                 if (headMap != null && !headMap.isEmpty()) {
-                    int headMapBytesLength = HeadMapSerializer.getInstance().encode(headMap, out);
+                    HeadMapTable table = headMapTable(ctx);
+                    int headMapBytesLength = HeadMapSerializer.getInstance().encode(headMap, out, table);
                     headLength += headMapBytesLength;
                     fullLength += headMapBytesLength;
+                    if (table != null) {
+                        out.setByte(frameStart + MESSAGE_TYPE_OFFSET,
+                            messageType | ProtocolConstants.MSGTYPE_FLAG_COMPACT_HEAD_MAP);
+                    }
                 }
 
-                byte[] bodyBytes = null;
                 if (messageType != ProtocolConstants.MSGTYPE_HEARTBEAT_REQUEST
                         && messageType != ProtocolConstants.MSGTYPE_HEARTBEAT_RESPONSE) {
                     // heartbeat has no body
-                    Serializer serializer = EnhancedServiceLoader.load(Serializer.class, SerializerType.getByCode(rpcMessage.getCodec()).name());
-                    bodyBytes = serializer.serialize(rpcMessage.getBody());
-                    Compressor compressor = CompressorFactory.getCompressor(rpcMessage.getCompressor());
-                    bodyBytes = compressor.compress(bodyBytes);
-                    fullLength += bodyBytes.length;
-                }
-
-                if (bodyBytes != null) {
-                    out.writeBytes(bodyBytes);
+                    fullLength += BodyCodec.encode(ctx, rpcMessage, out, frameStart + COMPRESSOR_OFFSET);
                 }
 
                 // fix fullLength and headLength
@@ -110,11 +119,37 @@ public class ProtocolV1Encoder extends MessageToByteEncoder {
                 out.writeInt(fullLength);
                 out.writeShort(headLength);
                 out.writerIndex(writeIndex);
+                EncodedSizeEstimator.record(rpcMessage.getBody(), fullLength);
             } else {
                 throw new UnsupportedOperationException("Not support this class:" + msg.getClass());
             }
         } catch (Throwable e) {
             LOGGER.error("Encode request error!", e);
+            // drop the partly written frame and fail the write, so no corrupt frame is sent
+            out.writerIndex(frameStart);
+            if (headMapTable != null) {
+                // the peer never sees this frame, so its head map table can no longer follow ours
+                ctx.close();
+            }
+            throw e instanceof EncoderException ? (EncoderException) e : new EncoderException(e);
+        }
+    }
+
+    private HeadMapTable headMapTable(ChannelHandlerContext ctx) {
+        if (headMapTable == null && Boolean.TRUE.equals(ctx.channel().attr(HeadMapSerializer.COMPACT_OUTBOUND).get())) {
+            headMapTable = HeadMapTable.forEncoder();
+        }
+        return headMapTable;
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, Object msg, boolean preferDirect) {
+        int initialCapacity = msg instanceof RpcMessage
+            ? EncodedSizeEstimator.estimate(((RpcMessage) msg).getBody()) : ProtocolConstants.V1_HEAD_LENGTH;
+        if (preferDirect) {
+            return ctx.alloc().ioBuffer(initialCapacity);
+        } else {
+            return ctx.alloc().heapBuffer(initialCapacity);
         }
     }
 }
@@ -0,0 +1,159 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty.v2;
+
+import com.gk.rpc.netty.v1.BodyCodec;
+import com.gk.rpc.netty.v1.HeadMapSerializer;
+import com.gk.rpc.netty.v1.HeadMapTable;
+import com.gk.rpc.protocol.HeartbeatMessage;
+import com.gk.rpc.protocol.ProtocolConstants;
+import com.gk.rpc.protocol.RpcMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.TooLongFrameException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * <pre>
+ * frame:
+ * +-------+-------+-------+-----------------+---------+---------+-----
+ * |  magic code   | Proto |  Frame length   | message | message | ...
+ * |               | col=2 |  (varint)       |         |         |
+ * +-------+-------+-------+-----------------+---------+---------+-----
+ *
+ * message:
+ * +-------+-------+-------+------------+------------+----------+-------------+-------+
+ * | Flags | Seria | Compr | RequestId  | Head map   | Head map | Body length | body  |
+ * | +Type | lizer | ess   | (varint)   | length(2B) | [flag]   | (varint)    |       |
+ * +-------+-------+-------+------------+------------+----------+-------------+-------+
+ * </pre>
+ * <p>
+ * <li>Frame length: bytes after the frame length field, a frame carries one or more messages</li>
+ * <li>Flags: {@link ProtocolConstants#MSGTYPE_FLAG_COMPACT_HEAD_MAP} and
+ * {@link ProtocolConstants#MSGTYPE_FLAG_HAS_HEAD_MAP}, the head map fields are only present with the latter</li>
+ * </p>
+ * A message without head map costs 6 bytes of framing in the common case, instead of 16 in v1.
+ *
+ * @see ProtocolV2Encoder
+ */
+public class ProtocolV2Decoder extends ByteToMessageDecoder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProtocolV2Decoder.class);
+
+    /**
+     * magic code(2B) + version(1B)
+     */
+    private static final int PREFIX_LENGTH = 3;
+
+    private static final int MESSAGE_TYPE_MASK = 0x3F;
+
+    private final int maxFrameLength;
+
+    /**
+     * The inbound head map table, created on the first message using the compact head map encoding.
+     */
+    private HeadMapTable headMapTable;
+
+    public ProtocolV2Decoder() {
+        this(ProtocolConstants.MAX_FRAME_LENGTH);
+    }
+
+    public ProtocolV2Decoder(int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        int start = in.readerIndex();
+        if (in.readableBytes() <= PREFIX_LENGTH) {
+            return;
+        }
+        if (ProtocolConstants.MAGIC_CODE_BYTES[0] != in.getByte(start)
+                || ProtocolConstants.MAGIC_CODE_BYTES[1] != in.getByte(start + 1)) {
+            throw new IllegalArgumentException("Unknown magic code: " + in.getByte(start) + ", " + in.getByte(start + 1));
+        }
+        byte version = in.getByte(start + 2);
+        if (version != ProtocolConstants.VERSION_V2) {
+            throw new IllegalArgumentException("Unexpected protocol version: " + version);
+        }
+        int lengthSize = Varints.peekSize(in, start + PREFIX_LENGTH);
+        if (lengthSize < 0) {
+            return;
+        }
+        in.readerIndex(start + PREFIX_LENGTH);
+        int frameLength = Varints.read(in);
+        if (frameLength < 0 || frameLength > maxFrameLength) {
+            throw new TooLongFrameException("Adjusted frame length exceeds " + maxFrameLength + ": " + frameLength);
+        }
+        if (in.readableBytes() < frameLength) {
+            in.readerIndex(start);
+            return;
+        }
+        ByteBuf frame = in.readSlice(frameLength);
+        try {
+            while (frame.isReadable()) {
+                out.add(decodeMessage(frame));
+            }
+        } catch (Exception e) {
+            LOGGER.error("Decode frame error!", e);
+            throw e;
+        }
+    }
+
+    private RpcMessage decodeMessage(ByteBuf frame) {
+        byte flagsAndType = frame.readByte();
+        byte messageType = (byte) (flagsAndType & MESSAGE_TYPE_MASK);
+        byte codecType = frame.readByte();
+        byte compressorType = frame.readByte();
+        int requestId = Varints.read(frame);
+
+        RpcMessage rpcMessage = new RpcMessage();
+        rpcMessage.setCodec(codecType);
+        rpcMessage.setId(requestId);
+        rpcMessage.setCompressor(compressorType);
+        rpcMessage.setMessageType(messageType);
+
+        if ((flagsAndType & ProtocolConstants.MSGTYPE_FLAG_HAS_HEAD_MAP) != 0) {
+            int headMapLength = frame.readUnsignedShort();
+            boolean compact = (flagsAndType & ProtocolConstants.MSGTYPE_FLAG_COMPACT_HEAD_MAP) != 0;
+            rpcMessage.setHeadMap(HeadMapSerializer.getInstance().decode(frame, headMapLength,
+                compact ? headMapTable() : null));
+        }
+
+        int bodyLength = Varints.read(frame);
+        if (messageType == ProtocolConstants.MSGTYPE_HEARTBEAT_REQUEST) {
+            frame.skipBytes(bodyLength);
+            rpcMessage.setBody(HeartbeatMessage.PING);
+        } else if (messageType == ProtocolConstants.MSGTYPE_HEARTBEAT_RESPONSE) {
+            frame.skipBytes(bodyLength);
+            rpcMessage.setBody(HeartbeatMessage.PONG);
+        } else if (bodyLength > 0) {
+            rpcMessage.setBody(BodyCodec.decodeOrDefer(codecType, compressorType, frame, bodyLength));
+        }
+        return rpcMessage;
+    }
+
+    private HeadMapTable headMapTable() {
+        if (headMapTable == null) {
+            headMapTable = HeadMapTable.forDecoder();
+        }
+        return headMapTable;
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty.v2;
+
+import com.gk.rpc.netty.v1.BodyCodec;
+import com.gk.rpc.netty.v1.EncodedSizeEstimator;
+import com.gk.rpc.netty.v1.HeadMapSerializer;
+import com.gk.rpc.netty.v1.HeadMapTable;
+import com.gk.rpc.protocol.ProtocolConstants;
+import com.gk.rpc.protocol.RpcMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs every message written between two flushes into one v2 frame, see {@link ProtocolV2Decoder}
+ * for the layout. A frame is also written early once it reaches
+ * {@link ProtocolConstants#CONFIGURED_V2_FRAME_BATCH_BYTES}. The promises of the packed messages
+ * complete with the write of their frame.
+ * <p>
+ * Length fields are reserved before the bytes they count are encoded, wide enough for the expected
+ * size, and filled in as padded varints afterwards.
+ *
+ * @see ProtocolV2Decoder
+ */
+public class ProtocolV2Encoder extends ChannelOutboundHandlerAdapter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProtocolV2Encoder.class);
+
+    /**
+     * Reserved width of the frame length, enough for 2M.
+     */
+    private static final int FRAME_LENGTH_WIDTH = 3;
+
+    /**
+     * Offset of the compressor byte in a message: flags and type(1B) + codec(1B)
+     */
+    private static final int COMPRESSOR_OFFSET = 2;
+
+    private final int frameBatchBytes;
+
+    private final List<ChannelPromise> pendingPromises = new ArrayList<>();
+
+    private ByteBuf frame;
+
+    private int frameLengthIndex;
+
+    /**
+     * The outbound head map table, created once the channel negotiated the compact head map encoding.
+     */
+    private HeadMapTable headMapTable;
+
+    public ProtocolV2Encoder() {
+        this(ProtocolConstants.CONFIGURED_V2_FRAME_BATCH_BYTES);
+    }
+
+    public ProtocolV2Encoder(int frameBatchBytes) {
+        this.frameBatchBytes = frameBatchBytes;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (!(msg instanceof RpcMessage)) {
+            writeFrame(ctx);
+            ctx.write(msg, promise);
+            return;
+        }
+        if (frame == null) {
+            frame = ctx.alloc().ioBuffer(EncodedSizeEstimator.estimate(((RpcMessage) msg).getBody()));
+            frame.writeBytes(ProtocolConstants.MAGIC_CODE_BYTES);
+            frame.writeByte(ProtocolConstants.VERSION_V2);
+            frameLengthIndex = frame.writerIndex();
+            frame.writeZero(FRAME_LENGTH_WIDTH);
+        }
+        int mark = frame.writerIndex();
+        try {
+            encodeMessage(ctx, (RpcMessage) msg, frame);
+        } catch (Throwable e) {
+            LOGGER.error("Encode request error!", e);
+            frame.writerIndex(mark);
+            promise.tryFailure(e);
+            if (headMapTable != null) {
+                // the peer never sees this message, so its head map table can no longer follow ours
+                ctx.close();
+            }
+            return;
+        }
+        if (!promise.isVoid()) {
+            pendingPromises.add(promise);
+        }
+        if (frame.writerIndex() - frameLengthIndex >= frameBatchBytes) {
+            writeFrame(ctx);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        writeFrame(ctx);
+        ctx.flush();
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        writeFrame(ctx);
+        ctx.flush();
+        super.close(ctx, promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        if (frame != null) {
+            frame.release();
+            frame = null;
+            failPending(new ClosedChannelException());
+        }
+    }
+
+    private void encodeMessage(ChannelHandlerContext ctx, RpcMessage rpcMessage, ByteBuf out) {
+        int start = out.writerIndex();
+        byte messageType = rpcMessage.getMessageType();
+        out.writeByte(messageType);
+        out.writeByte(rpcMessage.getCodec());
+        out.writeByte(rpcMessage.getCompressor());
+        Varints.write(out, rpcMessage.getId());
+
+        int flags = 0;
+        Map<String, String> headMap = rpcMessage.getHeadMap();
+        if (headMap != null && !headMap.isEmpty()) {
+            HeadMapTable table = headMapTable(ctx);
+            int headMapLengthIndex = out.writerIndex();
+            out.writeShort(0);
+            int headMapLength = HeadMapSerializer.getInstance().encode(headMap, out, table);
+            if (headMapLength > 0xFFFF) {
+                throw new IllegalArgumentException("head map too long: " + headMapLength);
+            }
+            out.setShort(headMapLengthIndex, headMapLength);
+            flags = ProtocolConstants.MSGTYPE_FLAG_HAS_HEAD_MAP;
+            if (table != null) {
+                flags |= ProtocolConstants.MSGTYPE_FLAG_COMPACT_HEAD_MAP;
+            }
+        }
+        if (flags != 0) {
+            out.setByte(start, messageType | flags);
+        }
+
+        if (messageType == ProtocolConstants.MSGTYPE_HEARTBEAT_REQUEST
+                || messageType == ProtocolConstants.MSGTYPE_HEARTBEAT_RESPONSE) {
+            // heartbeat has no body
+            out.writeByte(0);
+        } else {
+            int bodyLengthIndex = out.writerIndex();
+            int width = Varints.size(EncodedSizeEstimator.estimate(rpcMessage.getBody()));
+            out.writeZero(width);
+            BodyCodec.encode(ctx, rpcMessage, out, start + COMPRESSOR_OFFSET);
+            Varints.fillLength(out, bodyLengthIndex, width);
+        }
+        EncodedSizeEstimator.record(rpcMessage.getBody(), out.writerIndex() - start);
+    }
+
+    private void writeFrame(ChannelHandlerContext ctx) {
+        ByteBuf frame = this.frame;
+        if (frame == null) {
+            return;
+        }
+        this.frame = null;
+        Varints.fillLength(frame, frameLengthIndex, FRAME_LENGTH_WIDTH);
+        if (pendingPromises.isEmpty()) {
+            ctx.write(frame, ctx.voidPromise());
+            return;
+        }
+        ChannelPromise[] promises = pendingPromises.toArray(new ChannelPromise[0]);
+        pendingPromises.clear();
+        ctx.write(frame).addListener(future -> {
+            for (ChannelPromise promise : promises) {
+                if (future.isSuccess()) {
+                    promise.trySuccess();
+                } else {
+                    promise.tryFailure(future.cause());
+                }
+            }
+        });
+    }
+
+    private void failPending(Throwable cause) {
+        for (ChannelPromise promise : pendingPromises) {
+            promise.tryFailure(cause);
+        }
+        pendingPromises.clear();
+    }
+
+    private HeadMapTable headMapTable(ChannelHandlerContext ctx) {
+        if (headMapTable == null && Boolean.TRUE.equals(ctx.channel().attr(HeadMapSerializer.COMPACT_OUTBOUND).get())) {
+            headMapTable = HeadMapTable.forEncoder();
+        }
+        return headMapTable;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty.v2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+
+/**
+ * Unsigned LEB128 varints of 32 bits, as used by protocol v2.
+ * <p>
+ * A varint may be padded with redundant continuation bytes ({@code 0x85 0x00} is 5), which lets the
+ * encoder reserve the length field before it knows the length and fill it in afterwards.
+ */
+public final class Varints {
+
+    /**
+     * Max bytes of a 32 bits varint.
+     */
+    public static final int MAX_SIZE = 5;
+
+    private Varints() {
+    }
+
+    /**
+     * Gets the encoded size of a value.
+     *
+     * @param value the value, treated as unsigned
+     * @return the size in bytes
+     */
+    public static int size(int value) {
+        if ((value & (~0 << 7)) == 0) {
+            return 1;
+        } else if ((value & (~0 << 14)) == 0) {
+            return 2;
+        } else if ((value & (~0 << 21)) == 0) {
+            return 3;
+        } else if ((value & (~0 << 28)) == 0) {
+            return 4;
+        }
+        return MAX_SIZE;
+    }
+
+    /**
+     * Write a value in its shortest form.
+     *
+     * @param out   the out
+     * @param value the value, treated as unsigned
+     */
+    public static void write(ByteBuf out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Set a value padded to exactly {@code width} bytes at the index.
+     *
+     * @param out   the out
+     * @param index the index
+     * @param width the width, not smaller than {@link #size(int)} of the value
+     * @param value the value, treated as unsigned
+     */
+    public static void setPadded(ByteBuf out, int index, int width, int value) {
+        for (int i = 0; i < width - 1; i++) {
+            out.setByte(index + i, (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.setByte(index + width - 1, value & 0x7F);
+    }
+
+    /**
+     * Fill a length field reserved with {@code width} bytes at {@code index}, the length covers every
+     * byte written after the field. When the length does not fit the reservation, the bytes after the
+     * field are moved forward to make room.
+     *
+     * @param out    the out
+     * @param index  index of the reserved field
+     * @param width  the reserved width
+     * @return the length written
+     */
+    public static int fillLength(ByteBuf out, int index, int width) {
+        int length = out.writerIndex() - index - width;
+        int size = size(length);
+        if (size > width) {
+            int shift = size - width;
+            out.ensureWritable(shift);
+            ByteBuf moved = out.alloc().buffer(length);
+            try {
+                moved.writeBytes(out, index + width, length);
+                out.setBytes(index + size, moved, 0, length);
+            } finally {
+                moved.release();
+            }
+            out.writerIndex(out.writerIndex() + shift);
+            width = size;
+        }
+        setPadded(out, index, width, length);
+        return length;
+    }
+
+    /**
+     * Read a varint.
+     *
+     * @param in the in
+     * @return the value
+     */
+    public static int read(ByteBuf in) {
+        int value = 0;
+        for (int i = 0; i < MAX_SIZE; i++) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << (7 * i);
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new CorruptedFrameException("malformed varint");
+    }
+
+    /**
+     * Gets the size of the varint at the index without reading it.
+     *
+     * @param in    the in
+     * @param index the index
+     * @return the size in bytes, -1 when the varint is not complete yet
+     */
+    public static int peekSize(ByteBuf in, int index) {
+        int limit = Math.min(in.writerIndex() - index, MAX_SIZE);
+        for (int i = 0; i < limit; i++) {
+            if (in.getByte(index + i) >= 0) {
+                return i + 1;
+            }
+        }
+        if (limit == MAX_SIZE) {
+            throw new CorruptedFrameException("malformed varint");
+        }
+        return -1;
+    }
+}
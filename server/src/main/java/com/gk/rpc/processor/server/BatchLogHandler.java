@@ -15,16 +15,26 @@
  */
 package com.gk.rpc.processor.server;
 
+import com.gk.rpc.constants.ConfigurationKeys;
+import io.seata.core.ConfigurationFactory;
 import io.seata.thread.NamedThreadFactory;
+import io.seata.utils.NetUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.*;
+import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * handle ServerOnRequestProcessor and ServerOnResponseProcessor log print.
+ * <p>
+ * Producers claim a slot of a preallocated ring buffer and store the message reference and its
+ * fields there; nothing is formatted on the processor thread. A single consumer thread formats and
+ * prints the events, and only when INFO is enabled. When the ring is full the event is dropped and
+ * counted, so a slow appender can not grow the heap.
  *
  * @author zhangchenghui.dev@gmail.com
  * @since 1.3.0
@@ -33,52 +43,120 @@ public class BatchLogHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BatchLogHandler.class);
 
-    private static final BlockingQueue<String> LOG_QUEUE = new LinkedBlockingQueue<>();
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final String THREAD_PREFIX = "batchLoggerPrint";
+    private static final int SPIN_TRIES = 100;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
 
-    public static final BatchLogHandler INSTANCE = new BatchLogHandler();
+    public static final BatchLogHandler INSTANCE = new BatchLogHandler(ConfigurationFactory.getInstance()
+        .getInt(ConfigurationKeys.BATCH_LOG_BUFFER_SIZE, DEFAULT_BUFFER_SIZE));
 
-    private static final int MAX_LOG_SEND_THREAD = 1;
-    private static final int MAX_LOG_TAKE_SIZE = 1024;
-    private static final long KEEP_ALIVE_TIME = 0L;
-    private static final String THREAD_PREFIX = "batchLoggerPrint";
-    private static final long BUSY_SLEEP_MILLS = 5L;
+    private final LogEvent[] ring;
+
+    private final int mask;
+
+    /**
+     * The next sequence to claim, shared by the producers.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The next sequence to consume, only written by the consumer.
+     */
+    private final AtomicLong head = new AtomicLong();
 
-    static {
-        ExecutorService mergeSendExecutorService = new ThreadPoolExecutor(MAX_LOG_SEND_THREAD, MAX_LOG_SEND_THREAD,
-            KEEP_ALIVE_TIME, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
-            new NamedThreadFactory(THREAD_PREFIX, MAX_LOG_SEND_THREAD, true));
-        mergeSendExecutorService.submit(new BatchLogRunnable());
+    private final LongAdder dropped = new LongAdder();
+
+    private BatchLogHandler(int bufferSize) {
+        int size = Integer.highestOneBit(Math.max(bufferSize - 1, 1)) << 1;
+        this.ring = new LogEvent[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new LogEvent();
+        }
+        this.mask = size - 1;
+        new NamedThreadFactory(THREAD_PREFIX, 1, true).newThread(this::consume).start();
     }
 
-    public BlockingQueue<String> getLogQueue() {
-        return LOG_QUEUE;
+    /**
+     * Queue a received message for printing.
+     *
+     * @param message                 the message
+     * @param remoteAddress           the address of the client
+     * @param transactionServiceGroup the transaction service group of the client
+     * @return false if the event was dropped because the buffer is full
+     */
+    public boolean offer(Object message, SocketAddress remoteAddress, String transactionServiceGroup) {
+        if (!LOGGER.isInfoEnabled()) {
+            return true;
+        }
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head.get() >= ring.length) {
+                dropped.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        LogEvent event = ring[(int) sequence & mask];
+        event.message = message;
+        event.remoteAddress = remoteAddress;
+        event.transactionServiceGroup = transactionServiceGroup;
+        // publish the event
+        event.published = sequence + 1;
+        return true;
     }
 
     /**
-     * The type Batch log runnable.
+     * Gets the number of events dropped because the buffer was full.
+     *
+     * @return the dropped count
      */
-    static class BatchLogRunnable implements Runnable {
-
-        @Override
-        public void run() {
-            List<String> logList = new ArrayList<>();
-            while (true) {
-                try {
-                    logList.add(LOG_QUEUE.take());
-                    LOG_QUEUE.drainTo(logList, MAX_LOG_TAKE_SIZE);
-                    if (LOGGER.isInfoEnabled()) {
-                        for (String str : logList) {
-                            LOGGER.info(str);
-                        }
-                    }
-                    logList.clear();
-                    TimeUnit.MILLISECONDS.sleep(BUSY_SLEEP_MILLS);
-                } catch (InterruptedException exx) {
-                    LOGGER.error("batch log busy sleep error:{}", exx.getMessage(), exx);
-                }
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
 
+    private void consume() {
+        long next = head.get();
+        int idle = 0;
+        while (true) {
+            LogEvent event = ring[(int) next & mask];
+            if (event.published != next + 1) {
+                if (++idle > SPIN_TRIES) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                } else {
+                    Thread.yield();
+                }
+                continue;
+            }
+            idle = 0;
+            try {
+                if (LOGGER.isInfoEnabled()) {
+                    LOGGER.info("{},clientIp:{},vgroup:{}", event.message, NetUtil.toIpAddress(event.remoteAddress),
+                        event.transactionServiceGroup);
+                }
+            } catch (Throwable th) {
+                LOGGER.error("batch log print error:{}", th.getMessage(), th);
+            } finally {
+                event.message = null;
+                event.remoteAddress = null;
+                event.transactionServiceGroup = null;
+                next++;
+                head.lazySet(next);
             }
         }
     }
 
+    /**
+     * A preallocated slot of the ring, its fields are published by the volatile write of the sequence.
+     */
+    private static final class LogEvent {
+
+        private Object message;
+
+        private SocketAddress remoteAddress;
+
+        private String transactionServiceGroup;
+
+        private volatile long published;
+    }
 }
@@ -30,6 +30,8 @@ import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+
 /**
  * process TM client registry message.
  * <p>
@@ -82,7 +84,9 @@ public class RegTmProcessor implements RemotingProcessor {
         if (StringUtils.isNotEmpty(errorInfo)) {
             response.setMsg(errorInfo);
         }
-        remotingServer.sendAsyncResponse(rpcMessage, ctx.channel(), response);
+        Map<String, String> headMap = RegisterHeadNegotiator.negotiate(rpcMessage, isSuccess);
+        remotingServer.sendAsyncResponse(rpcMessage, ctx.channel(), response, headMap,
+            RegisterHeadNegotiator.activator(rpcMessage, headMap));
         if (LOGGER.isInfoEnabled()) {
             LOGGER.info("TM register success,message:{},channel:{},client version:{}", message, ctx.channel(),
                 message.getVersion());
@@ -0,0 +1,107 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.processor.server;
+
+import com.gk.rpc.compressor.ZstdDictionaryHolder;
+import com.gk.rpc.constants.ConfigurationKeys;
+import com.gk.rpc.netty.ResponseAggregator;
+import com.gk.rpc.netty.v1.HeadMapSerializer;
+import com.gk.rpc.protocol.ProtocolConstants;
+import com.gk.rpc.protocol.RpcMessage;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.seata.core.ConfigurationFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Negotiates the optional transport features of a channel through the heads of the register
+ * request and response, shared by {@link RegRmProcessor} and {@link RegTmProcessor}.
+ */
+final class RegisterHeadNegotiator {
+
+    private static final boolean ENABLE_HEAD_MAP_COMPACT = ConfigurationFactory.getInstance()
+        .getBoolean(ConfigurationKeys.ENABLE_HEAD_MAP_COMPACT, true);
+
+    private static final boolean ENABLE_RESPONSE_BATCH = ConfigurationFactory.getInstance()
+        .getBoolean(ConfigurationKeys.RESPONSE_BATCH_ENABLE, false);
+
+    private RegisterHeadNegotiator() {
+    }
+
+    /**
+     * Build the head map of the register response from the heads of the request, nothing is offered
+     * to a client whose registration failed.
+     *
+     * @param request    the register request
+     * @param registered whether the registration succeeded
+     * @return the head map of the response
+     */
+    static Map<String, String> negotiate(RpcMessage request, boolean registered) {
+        Map<String, String> headMap = new HashMap<>(4);
+        if (!registered) {
+            return headMap;
+        }
+        long dictId = ZstdDictionaryHolder.getInstance().getDictId();
+        if (dictId != 0) {
+            headMap.put(ProtocolConstants.HEAD_ZSTD_DICT_ID, String.valueOf(dictId));
+        }
+        if (ENABLE_HEAD_MAP_COMPACT && Boolean.parseBoolean(request.getHead(ProtocolConstants.HEAD_MAP_COMPACT))) {
+            headMap.put(ProtocolConstants.HEAD_MAP_COMPACT, Boolean.TRUE.toString());
+        }
+        if (ENABLE_RESPONSE_BATCH && Boolean.parseBoolean(request.getHead(ProtocolConstants.HEAD_BATCH_RESPONSE))) {
+            headMap.put(ProtocolConstants.HEAD_BATCH_RESPONSE, Boolean.TRUE.toString());
+        }
+        return headMap;
+    }
+
+    /**
+     * Build the listener of the register response write, which turns on the accepted features once the
+     * response is on the wire, so the response itself still uses the plain encoding.
+     *
+     * @param request         the register request
+     * @param responseHeadMap the head map of the register response
+     * @return the listener
+     */
+    static ChannelFutureListener activator(RpcMessage request, Map<String, String> responseHeadMap) {
+        return future -> {
+            if (future.isSuccess()) {
+                activate(future.channel(), request, responseHeadMap);
+            }
+        };
+    }
+
+    /**
+     * Turn on the accepted features of the channel.
+     *
+     * @param channel         the channel
+     * @param request         the register request
+     * @param responseHeadMap the head map of the register response
+     */
+    static void activate(Channel channel, RpcMessage request, Map<String, String> responseHeadMap) {
+        String dictId = responseHeadMap.get(ProtocolConstants.HEAD_ZSTD_DICT_ID);
+        if (dictId != null && dictId.equals(request.getHead(ProtocolConstants.HEAD_ZSTD_DICT_ID))) {
+            ZstdDictionaryHolder.getInstance().confirm(channel, Long.parseLong(dictId));
+        }
+        if (Boolean.parseBoolean(responseHeadMap.get(ProtocolConstants.HEAD_MAP_COMPACT))) {
+            channel.attr(HeadMapSerializer.COMPACT_OUTBOUND).set(Boolean.TRUE);
+        }
+        if (Boolean.parseBoolean(responseHeadMap.get(ProtocolConstants.HEAD_BATCH_RESPONSE))) {
+            channel.attr(ResponseAggregator.BATCH_OUTBOUND).set(Boolean.TRUE);
+        }
+    }
+}
@@ -15,11 +15,15 @@
  */
 package com.gk.rpc.processor.server;
 
+import com.gk.rpc.exception.TransactionExceptionCode;
 import com.gk.rpc.netty.*;
 import com.gk.rpc.processor.RemotingProcessor;
 import com.gk.rpc.protocol.AbstractMessage;
 import com.gk.rpc.protocol.AbstractResultMessage;
+import com.gk.rpc.protocol.AbstractTransactionResponse;
+import com.gk.rpc.protocol.GlobalBeginResponse;
 import com.gk.rpc.protocol.MergeResultMessage;
+import com.gk.rpc.protocol.ResultCode;
 import com.gk.rpc.protocol.RpcMessage;
 import io.netty.channel.ChannelHandlerContext;
 import io.seata.utils.NetUtil;
@@ -45,9 +49,20 @@ public class ServerOnRequestProcessor implements RemotingProcessor {
 
     private TransactionMessageHandler transactionMessageHandler;
 
+    /**
+     * Decides which requests are rejected under overload, null to admit all.
+     */
+    private AdmissionController admissionController;
+
     public ServerOnRequestProcessor(RemotingServer remotingServer, TransactionMessageHandler transactionMessageHandler) {
+        this(remotingServer, transactionMessageHandler, null);
+    }
+
+    public ServerOnRequestProcessor(RemotingServer remotingServer, TransactionMessageHandler transactionMessageHandler,
+                                    AdmissionController admissionController) {
         this.remotingServer = remotingServer;
         this.transactionMessageHandler = transactionMessageHandler;
+        this.admissionController = admissionController;
     }
 
     @Override
@@ -77,13 +92,8 @@ public class ServerOnRequestProcessor implements RemotingProcessor {
             LOGGER.debug("server received:{},clientIp:{},vgroup:{}", message,
                 NetUtil.toIpAddress(ctx.channel().remoteAddress()), rpcContext.getTransactionServiceGroup());
         } else {
-            try {
-                BatchLogHandler.INSTANCE.getLogQueue()
-                    .put(message + ",clientIp:" + NetUtil.toIpAddress(ctx.channel().remoteAddress()) + ",vgroup:"
-                        + rpcContext.getTransactionServiceGroup());
-            } catch (InterruptedException e) {
-                LOGGER.error("put message to logQueue error: {}", e.getMessage(), e);
-            }
+            BatchLogHandler.INSTANCE.offer(message, ctx.channel().remoteAddress(),
+                rpcContext.getTransactionServiceGroup());
         }
         if (!(message instanceof AbstractMessage)) {
             return;
@@ -92,17 +102,66 @@ public class ServerOnRequestProcessor implements RemotingProcessor {
             AbstractResultMessage[] results = new AbstractResultMessage[((MergedWarpMessage) message).msgs.size()];
             for (int i = 0; i < results.length; i++) {
                 final AbstractMessage subMessage = ((MergedWarpMessage) message).msgs.get(i);
-                results[i] = transactionMessageHandler.onRequest(subMessage, rpcContext);
+                results[i] = handleRequest(subMessage, rpcContext);
             }
             MergeResultMessage resultMessage = new MergeResultMessage();
             resultMessage.setMsgs(results);
-            remotingServer.sendAsyncResponse(rpcMessage, ctx.channel(), resultMessage);
+            sendResponse(rpcMessage, ctx, resultMessage, results);
         } else {
             // the single send request message
             final AbstractMessage msg = (AbstractMessage) message;
-            AbstractResultMessage result = transactionMessageHandler.onRequest(msg, rpcContext);
-            remotingServer.sendAsyncResponse(rpcMessage, ctx.channel(), result);
+            AbstractResultMessage result = handleRequest(msg, rpcContext);
+            sendResponse(rpcMessage, ctx, result, result);
+        }
+    }
+
+    /**
+     * Pass a request to the handler, or answer it with a rejection when admission control sheds it.
+     */
+    private AbstractResultMessage handleRequest(AbstractMessage request, RpcContext rpcContext) {
+        if (admissionController != null && !admissionController.admit(request.getTypeCode())) {
+            return newRejection();
+        }
+        return transactionMessageHandler.onRequest(request, rpcContext);
+    }
+
+    /**
+     * Build the response to a shed request. Only global begin is ever shed, the failed result with
+     * {@link TransactionExceptionCode#TooManyRequests} tells the client to retry later.
+     */
+    static GlobalBeginResponse newRejection() {
+        GlobalBeginResponse response = new GlobalBeginResponse();
+        response.setResultCode(ResultCode.Failed);
+        response.setTransactionExceptionCode(TransactionExceptionCode.TooManyRequests);
+        response.setMsg("server is overloaded, retry later");
+        return response;
+    }
+
+    /**
+     * Send a response carrying the results, counting the rejections among them once it was written.
+     */
+    private void sendResponse(RpcMessage rpcMessage, ChannelHandlerContext ctx, AbstractMessage response,
+                              AbstractResultMessage... results) {
+        int rejections = 0;
+        for (AbstractResultMessage result : results) {
+            if (result instanceof AbstractTransactionResponse && ((AbstractTransactionResponse) result)
+                .getTransactionExceptionCode() == TransactionExceptionCode.TooManyRequests) {
+                rejections++;
+            }
         }
+        if (rejections == 0 || admissionController == null) {
+            remotingServer.sendAsyncResponse(rpcMessage, ctx.channel(), response);
+            return;
+        }
+        final int shed = rejections;
+        // a response with a listener is written on its own, so the listener sees the outcome of the write
+        remotingServer.sendAsyncResponse(rpcMessage, ctx.channel(), response, null, future -> {
+            if (future.isSuccess()) {
+                for (int i = 0; i < shed; i++) {
+                    admissionController.recordShed();
+                }
+            }
+        });
     }
 
 }
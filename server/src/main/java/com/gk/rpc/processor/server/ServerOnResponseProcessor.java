@@ -21,15 +21,13 @@ import com.gk.rpc.netty.TransactionMessageHandler;
 import com.gk.rpc.processor.RemotingProcessor;
 import com.gk.rpc.protocol.AbstractResultMessage;
 import com.gk.rpc.protocol.MessageFuture;
+import com.gk.rpc.protocol.MessageFutureTable;
 import com.gk.rpc.protocol.RpcMessage;
 import io.netty.channel.ChannelHandlerContext;
 import io.seata.utils.NetUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-
 /**
  * handle RM/TM response message.
  * <p>
@@ -49,12 +47,12 @@ public class ServerOnResponseProcessor implements RemotingProcessor {
     private TransactionMessageHandler transactionMessageHandler;
 
     /**
-     * The Futures from io.seata.core.rpc.netty.AbstractNettyRemoting#futures
+     * The Futures from com.gk.rpc.netty.AbstractNettyRemoting#futures
      */
-    private ConcurrentMap<Integer, MessageFuture> futures;
+    private MessageFutureTable futures;
 
     public ServerOnResponseProcessor(TransactionMessageHandler transactionMessageHandler,
-                                     ConcurrentHashMap<Integer, MessageFuture> futures) {
+                                     MessageFutureTable futures) {
         this.transactionMessageHandler = transactionMessageHandler;
         this.futures = futures;
     }
@@ -90,13 +88,8 @@ public class ServerOnResponseProcessor implements RemotingProcessor {
                 NetUtil.toIpAddress(ctx.channel().remoteAddress()),
                 ChannelManager.getContextFromIdentified(ctx.channel()).getTransactionServiceGroup());
         } else {
-            try {
-                BatchLogHandler.INSTANCE.getLogQueue()
-                    .put(rpcMessage.getBody() + ",clientIp:" + NetUtil.toIpAddress(ctx.channel().remoteAddress()) + ",vgroup:"
-                        + ChannelManager.getContextFromIdentified(ctx.channel()).getTransactionServiceGroup());
-            } catch (InterruptedException e) {
-                LOGGER.error("put message to logQueue error: {}", e.getMessage(), e);
-            }
+            BatchLogHandler.INSTANCE.offer(rpcMessage.getBody(), ctx.channel().remoteAddress(),
+                ChannelManager.getContextFromIdentified(ctx.channel()).getTransactionServiceGroup());
         }
         if (rpcMessage.getBody() instanceof AbstractResultMessage) {
             RpcContext rpcContext = ChannelManager.getContextFromIdentified(ctx.channel());
@@ -0,0 +1,68 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.protocol;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Results of several single requests of one channel sent in one frame, each with the id of the
+ * request it answers. Only sent to clients which negotiated {@link ProtocolConstants#HEAD_BATCH_RESPONSE}.
+ */
+public class BatchResultMessage extends AbstractMessage implements MergeMessage {
+
+    private static final long serialVersionUID = 7394815297464325561L;
+
+    /**
+     * The result messages.
+     */
+    private List<AbstractResultMessage> resultMessages = new ArrayList<>();
+
+    /**
+     * The ids of the requests, in the order of the result messages.
+     */
+    private List<Integer> msgIds = new ArrayList<>();
+
+    public List<AbstractResultMessage> getResultMessages() {
+        return resultMessages;
+    }
+
+    public void setResultMessages(List<AbstractResultMessage> resultMessages) {
+        this.resultMessages = resultMessages;
+    }
+
+    public List<Integer> getMsgIds() {
+        return msgIds;
+    }
+
+    public void setMsgIds(List<Integer> msgIds) {
+        this.msgIds = msgIds;
+    }
+
+    @Override
+    public short getTypeCode() {
+        return MessageType.TYPE_BATCH_RESULT_MSG;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("BatchResultMessage ");
+        for (int i = 0; i < resultMessages.size(); i++) {
+            sb.append(msgIds.get(i)).append(':').append(resultMessages.get(i)).append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.protocol;
+
+/**
+ * The type Global begin response.
+ */
+public class GlobalBeginResponse extends AbstractTransactionResponse {
+
+    private static final long serialVersionUID = 2789758515942767673L;
+
+    private String xid;
+
+    private String extraData;
+
+    /**
+     * Gets xid.
+     *
+     * @return the xid
+     */
+    public String getXid() {
+        return xid;
+    }
+
+    /**
+     * Sets xid.
+     *
+     * @param xid the xid
+     */
+    public void setXid(String xid) {
+        this.xid = xid;
+    }
+
+    /**
+     * Gets extra data.
+     *
+     * @return the extra data
+     */
+    public String getExtraData() {
+        return extraData;
+    }
+
+    /**
+     * Sets extra data.
+     *
+     * @param extraData the extra data
+     */
+    public void setExtraData(String extraData) {
+        this.extraData = extraData;
+    }
+
+    @Override
+    public short getTypeCode() {
+        return MessageType.TYPE_GLOBAL_BEGIN_RESULT;
+    }
+}
@@ -16,9 +16,11 @@
 package com.gk.rpc.protocol;
 
 
+import io.netty.util.Timeout;
 import io.seata.exception.ShouldNeverHappenException;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -33,6 +35,7 @@ public class MessageFuture {
     private long timeout;
     private long start = System.currentTimeMillis();
     private transient CompletableFuture<Object> origin = new CompletableFuture<>();
+    private volatile Timeout timeoutHandle;
 
     /**
      * Is timeout boolean.
@@ -63,7 +66,9 @@ public class MessageFuture {
             throw new TimeoutException("cost " + (System.currentTimeMillis() - start) + " ms");
         }
 
-        if (result instanceof RuntimeException) {
+        if (result instanceof TimeoutException) {
+            throw (TimeoutException)result;
+        } else if (result instanceof RuntimeException) {
             throw (RuntimeException)result;
         } else if (result instanceof Throwable) {
             throw new RuntimeException((Throwable)result);
@@ -72,6 +77,26 @@ public class MessageFuture {
         return result;
     }
 
+    /**
+     * Gets the result as a stage, completed exceptionally with the throwable itself, not a
+     * CompletionException around it, when the result is a throwable.
+     *
+     * @return the stage
+     */
+    public CompletionStage<Object> toCompletionStage() {
+        CompletableFuture<Object> stage = new CompletableFuture<>();
+        origin.whenComplete((result, cause) -> {
+            if (cause != null) {
+                stage.completeExceptionally(cause);
+            } else if (result instanceof Throwable) {
+                stage.completeExceptionally((Throwable)result);
+            } else {
+                stage.complete(result);
+            }
+        });
+        return stage;
+    }
+
     /**
      * Sets result message.
      *
@@ -79,6 +104,26 @@ public class MessageFuture {
      */
     public void setResultMessage(Object obj) {
         origin.complete(obj);
+        cancelTimeout();
+    }
+
+    /**
+     * Cancel the timer task that expires this future, if any.
+     */
+    public void cancelTimeout() {
+        Timeout handle = timeoutHandle;
+        if (handle != null) {
+            handle.cancel();
+        }
+    }
+
+    /**
+     * Sets the timer task that expires this future, cancelled once a result is set.
+     *
+     * @param timeoutHandle the timeout handle
+     */
+    public void setTimeoutHandle(Timeout timeoutHandle) {
+        this.timeoutHandle = timeoutHandle;
     }
 
     /**
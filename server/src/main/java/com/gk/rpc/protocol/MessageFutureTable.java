@@ -0,0 +1,166 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.protocol;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free table of in-flight {@link MessageFuture}s keyed by the primitive message id.
+ * <p>
+ * Message ids come from a counter, so consecutive requests land in consecutive buckets and a bucket
+ * rarely holds more than one entry. Each bucket is an immutable chain replaced by compare-and-set,
+ * so put and remove never lock or box the id.
+ */
+public final class MessageFutureTable {
+
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    private final AtomicReferenceArray<Node> buckets;
+
+    private final int mask;
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    public MessageFutureTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Instantiates a new table.
+     *
+     * @param capacity the number of buckets, rounded up to a power of two
+     */
+    public MessageFutureTable(int capacity) {
+        int n = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.buckets = new AtomicReferenceArray<>(n);
+        this.mask = n - 1;
+    }
+
+    /**
+     * Put a future, replacing any future with the same id.
+     *
+     * @param id     the message id
+     * @param future the future
+     */
+    public void put(int id, MessageFuture future) {
+        int index = id & mask;
+        for (;;) {
+            Node head = buckets.get(index);
+            Node rest = without(head, id);
+            if (buckets.compareAndSet(index, head, new Node(id, future, rest))) {
+                if (rest == head) {
+                    size.incrementAndGet();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets a future.
+     *
+     * @param id the message id
+     * @return the future, null if absent
+     */
+    public MessageFuture get(int id) {
+        for (Node node = buckets.get(id & mask); node != null; node = node.next) {
+            if (node.id == id) {
+                return node.future;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remove a future.
+     *
+     * @param id the message id
+     * @return the removed future, null if absent
+     */
+    public MessageFuture remove(int id) {
+        int index = id & mask;
+        for (;;) {
+            Node head = buckets.get(index);
+            Node found = head;
+            while (found != null && found.id != id) {
+                found = found.next;
+            }
+            if (found == null) {
+                return null;
+            }
+            if (buckets.compareAndSet(index, head, without(head, id))) {
+                size.decrementAndGet();
+                return found.future;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of in-flight futures.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Remove every future and hand it to the action, used on shutdown.
+     *
+     * @param action the action
+     */
+    public void drain(Consumer<MessageFuture> action) {
+        for (int i = 0; i < buckets.length(); i++) {
+            Node node = buckets.getAndSet(i, null);
+            for (; node != null; node = node.next) {
+                size.decrementAndGet();
+                action.accept(node.future);
+            }
+        }
+    }
+
+    /**
+     * Copy the chain up to the node with the id and link the copy to the rest, the chain itself if
+     * the id is absent.
+     */
+    private static Node without(Node head, int id) {
+        if (head == null) {
+            return null;
+        }
+        if (head.id == id) {
+            return head.next;
+        }
+        Node rest = without(head.next, id);
+        return rest == head.next ? head : new Node(head.id, head.future, rest);
+    }
+
+    private static final class Node {
+
+        private final int id;
+
+        private final MessageFuture future;
+
+        private final Node next;
+
+        private Node(int id, MessageFuture future, Node next) {
+            this.id = id;
+            this.future = future;
+            this.next = next;
+        }
+    }
+}
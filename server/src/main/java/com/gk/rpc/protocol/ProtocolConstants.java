@@ -36,6 +36,11 @@ public interface ProtocolConstants {
      */
     byte VERSION = 1;
 
+    /**
+     * Protocol version 2, varint lengths and many messages per frame
+     */
+    byte VERSION_V2 = 2;
+
     /**
      * Max frame length
      */
@@ -66,6 +71,37 @@ public interface ProtocolConstants {
      * Message type: Heartbeat Response
      */
     byte MSGTYPE_HEARTBEAT_RESPONSE = 4;
+    /**
+     * Flag OR-ed into the message type byte when the head map uses the compact encoding
+     *
+     * @see #HEAD_MAP_COMPACT
+     */
+    byte MSGTYPE_FLAG_COMPACT_HEAD_MAP = (byte) 0x80;
+    /**
+     * Flag OR-ed into the message type byte of protocol v2 when the message carries a head map
+     */
+    byte MSGTYPE_FLAG_HAS_HEAD_MAP = 0x40;
+
+    /**
+     * Head key: id of the zstd dictionary the server compresses with, sent in register responses. A
+     * client sends the id of the dictionary it owns in its register request, and only gets dictionary
+     * compressed frames when it matches
+     *
+     * @see CompressorType#ZSTD_DICT
+     */
+    String HEAD_ZSTD_DICT_ID = "zstdDictId";
+
+    /**
+     * Head key: set to true in a register request to ask for the compact head map encoding, echoed in
+     * the register response when the server accepts it
+     */
+    String HEAD_MAP_COMPACT = "headMapCompact";
+
+    /**
+     * Head key: set to true in a register request when the client unpacks {@link BatchResultMessage},
+     * echoed in the register response when the server will batch responses to the channel
+     */
+    String HEAD_BATCH_RESPONSE = "batchResponse";
 
     //byte MSGTYPE_NEGOTIATOR_REQUEST = 5;
     //byte MSGTYPE_NEGOTIATOR_RESPONSE = 6;
@@ -84,4 +120,25 @@ public interface ProtocolConstants {
      */
     byte CONFIGURED_COMPRESSOR = CompressorType.getByName(ConfigurationFactory.getInstance()
             .getConfig(ConfigurationKeys.COMPRESSOR_FOR_RPC, CompressorType.NONE.name())).getCode();
+
+    /**
+     * Configured compress threshold in bytes by user, default is 0 which compresses every body.
+     * Smaller bodies are sent uncompressed and the header carries {@link CompressorType#NONE}.
+     */
+    int CONFIGURED_COMPRESS_THRESHOLD = ConfigurationFactory.getInstance()
+            .getInt(ConfigurationKeys.COMPRESS_THRESHOLD_FOR_RPC, 0);
+
+    /**
+     * Configured body size in bytes by user from which decoding moves from the IO thread to the thread
+     * processing the message, default is 0 which decodes every body on the IO thread.
+     */
+    int CONFIGURED_DECODE_OFFLOAD_THRESHOLD = ConfigurationFactory.getInstance()
+            .getInt(ConfigurationKeys.DECODE_OFFLOAD_THRESHOLD, 0);
+
+    /**
+     * Configured max bytes of messages packed into one protocol v2 frame, default is 64K.
+     * A frame is written early once it grows past this size, otherwise on flush.
+     */
+    int CONFIGURED_V2_FRAME_BATCH_BYTES = ConfigurationFactory.getInstance()
+            .getInt(ConfigurationKeys.V2_FRAME_BATCH_BYTES, 64 * 1024);
 }
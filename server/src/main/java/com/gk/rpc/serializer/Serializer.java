@@ -15,6 +15,8 @@
  */
 package com.gk.rpc.serializer;
 
+import io.netty.buffer.ByteBuf;
+
 /**
  * The interface Codec.
  *
@@ -31,6 +33,20 @@ public interface Serializer {
      */
     <T> byte[] serialize(T t);
 
+    /**
+     * Encode object directly into a ByteBuf.
+     * <p>
+     * The default implementation delegates to {@link #serialize(Object)} and copies the result,
+     * serializers that can write straight into the buffer should override it.
+     *
+     * @param <T> the type parameter
+     * @param t   the t
+     * @param out the ByteBuf to write to
+     */
+    default <T> void serialize(T t, ByteBuf out) {
+        out.writeBytes(serialize(t));
+    }
+
     /**
      * Decode t from byte[].
      *
@@ -39,4 +55,22 @@ public interface Serializer {
      * @return the t
      */
     <T> T deserialize(byte[] bytes);
+
+    /**
+     * Decode t from the readable bytes of a ByteBuf.
+     * <p>
+     * The default implementation copies the readable bytes into a byte[] and delegates to
+     * {@link #deserialize(byte[])}, so existing plugins keep working. Serializers that can read
+     * straight from the buffer should override it to avoid the copy.
+     * The caller keeps the ownership of {@code in}.
+     *
+     * @param <T> the type parameter
+     * @param in  the ByteBuf, all readable bytes are consumed
+     * @return the t
+     */
+    default <T> T deserialize(ByteBuf in) {
+        byte[] bytes = new byte[in.readableBytes()];
+        in.readBytes(bytes);
+        return deserialize(bytes);
+    }
 }
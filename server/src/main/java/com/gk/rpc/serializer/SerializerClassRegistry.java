@@ -15,6 +15,7 @@
  */
 package com.gk.rpc.serializer;
 
+import com.gk.rpc.exception.TransactionExceptionCode;
 import com.gk.rpc.netty.MergedWarpMessage;
 import com.gk.rpc.protocol.*;
 
@@ -60,10 +61,16 @@ public class SerializerClassRegistry {
 
         registerClass(MergedWarpMessage.class);
         registerClass(MergeResultMessage.class);
+        registerClass(BatchResultMessage.class);
         registerClass(RegisterRMRequest.class);
         registerClass(RegisterRMResponse.class);
         registerClass(RegisterTMRequest.class);
         registerClass(RegisterTMResponse.class);
+        registerClass(GlobalBeginResponse.class);
+        // field types of the messages above
+        registerClass(ResultCode.class);
+        registerClass(AbstractResultMessage[].class);
+        registerClass(TransactionExceptionCode.class);
     }
     
     /**
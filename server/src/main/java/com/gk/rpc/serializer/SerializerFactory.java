@@ -0,0 +1,115 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.serializer;
+
+import io.seata.loader.EnhancedServiceLoader;
+import io.seata.loader.EnhancedServiceNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * the type serializer factory
+ * <p>
+ * Serializers are resolved once into a table indexed by the codec byte of the protocol header,
+ * so looking one up on the hot path is a single array load.
+ */
+public class SerializerFactory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SerializerFactory.class);
+
+    private static final int TABLE_SIZE = 256;
+
+    /**
+     * The serializer table, indexed by unsigned codec byte.
+     */
+    private static final AtomicReferenceArray<Serializer> SERIALIZERS = new AtomicReferenceArray<>(TABLE_SIZE);
+
+    private static final LongAdder LOOKUPS = new LongAdder();
+
+    private static final LongAdder SLOW_LOOKUPS = new LongAdder();
+
+    static {
+        for (SerializerType type : SerializerType.values()) {
+            try {
+                SERIALIZERS.set(indexOf(type.getCode()), EnhancedServiceLoader.load(Serializer.class, type.name()));
+            } catch (EnhancedServiceNotFoundException e) {
+                LOGGER.debug("serializer {} is not available at startup", type.name());
+            }
+        }
+    }
+
+    /**
+     * Get serializer by code.
+     *
+     * @param code the code
+     * @return the serializer
+     */
+    public static Serializer getSerializer(byte code) {
+        LOOKUPS.increment();
+        Serializer serializer = SERIALIZERS.get(indexOf(code));
+        if (serializer == null) {
+            serializer = loadSerializer(code);
+        }
+        return serializer;
+    }
+
+    /**
+     * Register a serializer at runtime, replacing any serializer registered with the same code.
+     *
+     * @param code       the code
+     * @param serializer the serializer
+     */
+    public static void registerSerializer(byte code, Serializer serializer) {
+        if (serializer == null) {
+            throw new IllegalArgumentException("Serializer registered cannot be null!");
+        }
+        SERIALIZERS.set(indexOf(code), serializer);
+    }
+
+    /**
+     * Gets the number of serializer lookups.
+     *
+     * @return the lookup count
+     */
+    public static long getLookupCount() {
+        return LOOKUPS.sum();
+    }
+
+    /**
+     * Gets the number of lookups which missed the table and went through the service loader.
+     *
+     * @return the slow lookup count
+     */
+    public static long getSlowLookupCount() {
+        return SLOW_LOOKUPS.sum();
+    }
+
+    private static Serializer loadSerializer(byte code) {
+        SLOW_LOOKUPS.increment();
+        Serializer serializer = EnhancedServiceLoader.load(Serializer.class, SerializerType.getByCode(code).name());
+        if (SERIALIZERS.compareAndSet(indexOf(code), null, serializer)) {
+            return serializer;
+        }
+        return SERIALIZERS.get(indexOf(code));
+    }
+
+    private static int indexOf(byte code) {
+        return code & 0xFF;
+    }
+}
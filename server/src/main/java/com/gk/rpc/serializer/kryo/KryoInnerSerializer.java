@@ -0,0 +1,137 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.serializer.kryo;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+
+/**
+ * A kryo with its reusable input and output, confined to one thread.
+ */
+public class KryoInnerSerializer {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Kryo kryo;
+
+    private final Input input = new Input();
+
+    private final Input streamInput = new Input(BUFFER_SIZE);
+
+    private Output output = new Output(BUFFER_SIZE, -1);
+
+    public KryoInnerSerializer(Kryo kryo) {
+        this.kryo = kryo;
+    }
+
+    public Kryo getKryo() {
+        return kryo;
+    }
+
+    /**
+     * Encode object to byte[].
+     *
+     * @param <T> the type parameter
+     * @param t   the t
+     * @return the byte [ ]
+     */
+    public <T> byte[] serialize(T t) {
+        try {
+            return write(t).toBytes();
+        } finally {
+            resetOutput();
+        }
+    }
+
+    /**
+     * Encode object into a ByteBuf.
+     *
+     * @param <T> the type parameter
+     * @param t   the t
+     * @param out the ByteBuf to write to
+     */
+    public <T> void serialize(T t, ByteBuf out) {
+        try {
+            Output output = write(t);
+            out.writeBytes(output.getBuffer(), 0, output.position());
+        } finally {
+            resetOutput();
+        }
+    }
+
+    /**
+     * Decode t from byte[].
+     *
+     * @param <T>   the type parameter
+     * @param bytes the bytes
+     * @return the t
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T deserialize(byte[] bytes) {
+        input.setBuffer(bytes);
+        try {
+            return (T) kryo.readClassAndObject(input);
+        } finally {
+            input.setBuffer(EMPTY);
+        }
+    }
+
+    /**
+     * Decode t from the readable bytes of a ByteBuf, heap buffers are read in place.
+     *
+     * @param <T> the type parameter
+     * @param in  the ByteBuf, all readable bytes are consumed
+     * @return the t
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T deserialize(ByteBuf in) {
+        if (!in.hasArray()) {
+            streamInput.setInputStream(new ByteBufInputStream(in));
+            try {
+                return (T) kryo.readClassAndObject(streamInput);
+            } finally {
+                streamInput.setInputStream(null);
+                in.readerIndex(in.writerIndex());
+            }
+        }
+        input.setBuffer(in.array(), in.arrayOffset() + in.readerIndex(), in.readableBytes());
+        try {
+            return (T) kryo.readClassAndObject(input);
+        } finally {
+            input.setBuffer(EMPTY);
+            in.readerIndex(in.writerIndex());
+        }
+    }
+
+    private Output write(Object t) {
+        output.clear();
+        kryo.writeClassAndObject(output, t);
+        return output;
+    }
+
+    private void resetOutput() {
+        if (output.getBuffer().length > MAX_RETAINED_BUFFER_SIZE) {
+            output = new Output(BUFFER_SIZE, -1);
+        }
+    }
+}
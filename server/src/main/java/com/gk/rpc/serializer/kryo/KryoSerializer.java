@@ -0,0 +1,49 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.serializer.kryo;
+
+import com.gk.rpc.serializer.Serializer;
+import io.netty.buffer.ByteBuf;
+import io.seata.loader.LoadLevel;
+
+/**
+ * The kryo serializer, a general purpose option for messages without a hand-written codec.
+ *
+ * @see KryoSerializerFactory
+ */
+@LoadLevel(name = "KRYO")
+public class KryoSerializer implements Serializer {
+
+    @Override
+    public <T> byte[] serialize(T t) {
+        return KryoSerializerFactory.getInstance().get().serialize(t);
+    }
+
+    @Override
+    public <T> void serialize(T t, ByteBuf out) {
+        KryoSerializerFactory.getInstance().get().serialize(t, out);
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes) {
+        return KryoSerializerFactory.getInstance().get().deserialize(bytes);
+    }
+
+    @Override
+    public <T> T deserialize(ByteBuf in) {
+        return KryoSerializerFactory.getInstance().get().deserialize(in);
+    }
+}
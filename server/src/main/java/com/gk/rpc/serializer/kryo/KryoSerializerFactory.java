@@ -0,0 +1,131 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.serializer.kryo;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.gk.rpc.serializer.SerializerClassRegistry;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.text.SimpleDateFormat;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Creates the per thread {@link KryoInnerSerializer}.
+ * <p>
+ * Kryo instances are not thread safe, so each thread gets its own one from a {@link FastThreadLocal}
+ * instead of borrowing from a shared pool. Every instance registers the classes of
+ * {@link SerializerClassRegistry} in the same order, so the class ids agree across threads and
+ * across processes running the same registry. Registration is required: a frame naming any other
+ * class is rejected instead of instantiating it, and objects are only created through their no-arg
+ * constructors.
+ * <p>
+ * The JDK classes of the registry which Kryo has no default serializer for get one here, since a
+ * {@code FieldSerializer} cannot reach their private fields on JDK 9 and later.
+ */
+public class KryoSerializerFactory {
+
+    private static final KryoSerializerFactory FACTORY = new KryoSerializerFactory();
+
+    private static final Map<Class<?>, Serializer<?>> JDK_SERIALIZERS = new HashMap<>();
+
+    static {
+        JDK_SERIALIZERS.put(SimpleDateFormat.class, new SimpleDateFormatSerializer());
+        JDK_SERIALIZERS.put(BitSet.class, new BitSetSerializer());
+    }
+
+    private final FastThreadLocal<KryoInnerSerializer> serializers = new FastThreadLocal<KryoInnerSerializer>() {
+        @Override
+        protected KryoInnerSerializer initialValue() {
+            return new KryoInnerSerializer(createKryo());
+        }
+    };
+
+    private KryoSerializerFactory() {
+    }
+
+    public static KryoSerializerFactory getInstance() {
+        return FACTORY;
+    }
+
+    /**
+     * Get the serializer bound to the current thread.
+     *
+     * @return the serializer
+     */
+    public KryoInnerSerializer get() {
+        return serializers.get();
+    }
+
+    private Kryo createKryo() {
+        Kryo kryo = new Kryo();
+        kryo.setRegistrationRequired(true);
+        for (Map.Entry<Class<?>, Object> entry : SerializerClassRegistry.getRegisteredClasses().entrySet()) {
+            Object serializer = entry.getValue();
+            if (serializer == null) {
+                serializer = JDK_SERIALIZERS.get(entry.getKey());
+            }
+            if (serializer instanceof Serializer) {
+                kryo.register(entry.getKey(), (Serializer) serializer);
+            } else {
+                kryo.register(entry.getKey());
+            }
+        }
+        return kryo;
+    }
+
+    /**
+     * Writes the pattern and the time zone, the locale dependent symbols are those of the reader.
+     */
+    static class SimpleDateFormatSerializer extends Serializer<SimpleDateFormat> {
+
+        @Override
+        public void write(Kryo kryo, Output output, SimpleDateFormat format) {
+            output.writeString(format.toPattern());
+            output.writeString(format.getTimeZone().getID());
+        }
+
+        @Override
+        public SimpleDateFormat read(Kryo kryo, Input input, Class<SimpleDateFormat> type) {
+            SimpleDateFormat format = new SimpleDateFormat(input.readString());
+            format.setTimeZone(TimeZone.getTimeZone(input.readString()));
+            return format;
+        }
+    }
+
+    /**
+     * Writes the words of the set.
+     */
+    static class BitSetSerializer extends Serializer<BitSet> {
+
+        @Override
+        public void write(Kryo kryo, Output output, BitSet bitSet) {
+            long[] words = bitSet.toLongArray();
+            output.writeVarInt(words.length, true);
+            output.writeLongs(words);
+        }
+
+        @Override
+        public BitSet read(Kryo kryo, Input input, Class<BitSet> type) {
+            return BitSet.valueOf(input.readLongs(input.readVarInt(true)));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.serializer.seata;
+
+import com.gk.rpc.protocol.AbstractIdentifyRequest;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * The codec of the register requests.
+ *
+ * @param <T> the request type
+ */
+public abstract class AbstractIdentifyRequestCodec<T extends AbstractIdentifyRequest> extends AbstractMessageCodec<T> {
+
+    /**
+     * Create an empty request to decode into.
+     *
+     * @return the request
+     */
+    protected abstract T newMessage();
+
+    @Override
+    public void encode(T message, ByteBuf out) {
+        writeString(out, message.getVersion());
+        writeString(out, message.getApplicationId());
+        writeString(out, message.getTransactionServiceGroup());
+        writeText(out, message.getExtraData());
+    }
+
+    @Override
+    public T decode(ByteBuf in) {
+        T message = newMessage();
+        message.setVersion(readString(in));
+        message.setApplicationId(readString(in));
+        message.setTransactionServiceGroup(readString(in));
+        message.setExtraData(readText(in));
+        return message;
+    }
+}
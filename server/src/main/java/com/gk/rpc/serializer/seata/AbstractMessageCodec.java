@@ -0,0 +1,145 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.serializer.seata;
+
+import com.gk.rpc.protocol.MessageTypeAware;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * Base of the hand-written codecs, with the shared string and nested message helpers.
+ * <p>
+ * Strings are written as a length prefix followed by the UTF-8 bytes, a negative length stands for
+ * null. The UTF-8 bytes are written straight into the buffer and the prefix is patched afterwards,
+ * so encoding a string allocates nothing. Decoding copies the bytes of a direct buffer into a
+ * per-thread scratch array, so only the string itself is allocated.
+ *
+ * @param <T> the message type
+ */
+public abstract class AbstractMessageCodec<T> implements MessageSeataCodec<T> {
+
+    private static final FastThreadLocal<byte[]> SCRATCH = new FastThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[256];
+        }
+    };
+
+    /**
+     * Write a string with a 2 bytes length prefix, for short identifiers.
+     *
+     * @param out   the out
+     * @param value the value
+     */
+    protected static void writeString(ByteBuf out, String value) {
+        if (value == null) {
+            out.writeShort(-1);
+            return;
+        }
+        int lengthIndex = out.writerIndex();
+        out.writeShort(0);
+        int length = ByteBufUtil.writeUtf8(out, value);
+        if (length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("string too long for a short length: " + length);
+        }
+        out.setShort(lengthIndex, length);
+    }
+
+    /**
+     * Read a string written by {@link #writeString(ByteBuf, String)}.
+     *
+     * @param in the in
+     * @return the string
+     */
+    protected static String readString(ByteBuf in) {
+        return readUtf8(in, in.readShort());
+    }
+
+    /**
+     * Write a string with a 4 bytes length prefix, for free text like extra data.
+     *
+     * @param out   the out
+     * @param value the value
+     */
+    protected static void writeText(ByteBuf out, String value) {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        int lengthIndex = out.writerIndex();
+        out.writeInt(0);
+        out.setInt(lengthIndex, ByteBufUtil.writeUtf8(out, value));
+    }
+
+    /**
+     * Read a string written by {@link #writeText(ByteBuf, String)}.
+     *
+     * @param in the in
+     * @return the string
+     */
+    protected static String readText(ByteBuf in) {
+        return readUtf8(in, in.readInt());
+    }
+
+    /**
+     * Write a nested message with its type code prefix.
+     *
+     * @param out     the out
+     * @param message the message
+     */
+    protected static void writeMessage(ByteBuf out, MessageTypeAware message) {
+        short typeCode = message.getTypeCode();
+        out.writeShort(typeCode);
+        MessageCodecFactory.<MessageTypeAware>getCodec(typeCode).encode(message, out);
+    }
+
+    /**
+     * Read a nested message written by {@link #writeMessage(ByteBuf, MessageTypeAware)}.
+     *
+     * @param <M> the message type
+     * @param in  the in
+     * @return the message
+     */
+    protected static <M> M readMessage(ByteBuf in) {
+        return MessageCodecFactory.<M>getCodec(in.readShort()).decode(in);
+    }
+
+    private static String readUtf8(ByteBuf in, int length) {
+        if (length < 0) {
+            return null;
+        }
+        if (length == 0) {
+            return "";
+        }
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.readerIndex(), length, CharsetUtil.UTF_8);
+        } else {
+            // readCharSequence decodes a direct buffer through a CharBuffer and copies it again
+            byte[] bytes = SCRATCH.get();
+            if (bytes.length < length) {
+                bytes = new byte[Math.max(length, bytes.length << 1)];
+                SCRATCH.set(bytes);
+            }
+            in.getBytes(in.readerIndex(), bytes, 0, length);
+            value = new String(bytes, 0, length, CharsetUtil.UTF_8);
+        }
+        in.skipBytes(length);
+        return value;
+    }
+}
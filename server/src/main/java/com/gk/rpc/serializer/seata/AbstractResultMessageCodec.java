@@ -0,0 +1,61 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.serializer.seata;
+
+import com.gk.rpc.protocol.AbstractResultMessage;
+import com.gk.rpc.protocol.ResultCode;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * The codec of result messages, writes the result code and message.
+ * Subclasses of other result types append their own fields.
+ *
+ * @param <T> the result type
+ */
+public abstract class AbstractResultMessageCodec<T extends AbstractResultMessage> extends AbstractMessageCodec<T> {
+
+    private static final ResultCode[] RESULT_CODES = ResultCode.values();
+
+    private static final byte NULL_RESULT_CODE = -1;
+
+    /**
+     * Create an empty result to decode into.
+     *
+     * @return the result
+     */
+    protected abstract T newMessage();
+
+    @Override
+    public void encode(T message, ByteBuf out) {
+        ResultCode resultCode = message.getResultCode();
+        out.writeByte(resultCode == null ? NULL_RESULT_CODE : resultCode.ordinal());
+        writeText(out, message.getMsg());
+    }
+
+    @Override
+    public T decode(ByteBuf in) {
+        T message = newMessage();
+        byte resultCode = in.readByte();
+        if (resultCode != NULL_RESULT_CODE) {
+            if (resultCode < 0 || resultCode >= RESULT_CODES.length) {
+                throw new IllegalArgumentException("Unknown ResultCode[" + resultCode + "]");
+            }
+            message.setResultCode(RESULT_CODES[resultCode]);
+        }
+        message.setMsg(readText(in));
+        return message;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.serializer.seata;
+
+import com.gk.rpc.exception.TransactionExceptionCode;
+import com.gk.rpc.protocol.AbstractTransactionResponse;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * The codec of the transaction responses, appends the transaction exception code.
+ *
+ * @param <T> the response type
+ */
+public abstract class AbstractTransactionResponseCodec<T extends AbstractTransactionResponse>
+    extends AbstractResultMessageCodec<T> {
+
+    @Override
+    public void encode(T message, ByteBuf out) {
+        super.encode(message, out);
+        out.writeByte(message.getTransactionExceptionCode().ordinal());
+    }
+
+    @Override
+    public T decode(ByteBuf in) {
+        T message = super.decode(in);
+        message.setTransactionExceptionCode(TransactionExceptionCode.get(in.readByte()));
+        return message;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.serializer.seata;
+
+import com.gk.rpc.protocol.AbstractResultMessage;
+import com.gk.rpc.protocol.BatchResultMessage;
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The codec of {@link BatchResultMessage}, each result is written after the id of its request and
+ * with its own type code.
+ */
+public class BatchResultMessageCodec extends AbstractMessageCodec<BatchResultMessage> {
+
+    @Override
+    public void encode(BatchResultMessage message, ByteBuf out) {
+        List<AbstractResultMessage> resultMessages = message.getResultMessages();
+        List<Integer> msgIds = message.getMsgIds();
+        int size = resultMessages.size();
+        out.writeShort(size);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(msgIds.get(i));
+            writeMessage(out, resultMessages.get(i));
+        }
+    }
+
+    @Override
+    public BatchResultMessage decode(ByteBuf in) {
+        int size = in.readUnsignedShort();
+        List<AbstractResultMessage> resultMessages = new ArrayList<>(size);
+        List<Integer> msgIds = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            msgIds.add(in.readInt());
+            resultMessages.add(readMessage(in));
+        }
+        BatchResultMessage message = new BatchResultMessage();
+        message.setResultMessages(resultMessages);
+        message.setMsgIds(msgIds);
+        return message;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.serializer.seata;
+
+import com.gk.rpc.protocol.AbstractResultMessage;
+import com.gk.rpc.protocol.MergeResultMessage;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * The codec of {@link MergeResultMessage}, each result is written with its own type code.
+ */
+public class MergeResultMessageCodec extends AbstractMessageCodec<MergeResultMessage> {
+
+    @Override
+    public void encode(MergeResultMessage message, ByteBuf out) {
+        AbstractResultMessage[] msgs = message.getMsgs();
+        out.writeShort(msgs.length);
+        for (AbstractResultMessage msg : msgs) {
+            writeMessage(out, msg);
+        }
+    }
+
+    @Override
+    public MergeResultMessage decode(ByteBuf in) {
+        MergeResultMessage message = new MergeResultMessage();
+        AbstractResultMessage[] msgs = new AbstractResultMessage[in.readUnsignedShort()];
+        for (int i = 0; i < msgs.length; i++) {
+            msgs[i] = readMessage(in);
+        }
+        message.setMsgs(msgs);
+        return message;
+    }
+}
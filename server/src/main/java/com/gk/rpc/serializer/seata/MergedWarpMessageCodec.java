@@ -0,0 +1,52 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.serializer.seata;
+
+import com.gk.rpc.netty.MergedWarpMessage;
+import com.gk.rpc.protocol.AbstractMessage;
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The codec of {@link MergedWarpMessage}, each sub message is written with its own type code.
+ * The msg ids stay on the sending side and are not written.
+ */
+public class MergedWarpMessageCodec extends AbstractMessageCodec<MergedWarpMessage> {
+
+    @Override
+    public void encode(MergedWarpMessage message, ByteBuf out) {
+        List<AbstractMessage> msgs = message.msgs;
+        int size = msgs.size();
+        out.writeShort(size);
+        for (int i = 0; i < size; i++) {
+            writeMessage(out, msgs.get(i));
+        }
+    }
+
+    @Override
+    public MergedWarpMessage decode(ByteBuf in) {
+        MergedWarpMessage message = new MergedWarpMessage();
+        int size = in.readUnsignedShort();
+        List<AbstractMessage> msgs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            msgs.add(readMessage(in));
+        }
+        message.msgs = msgs;
+        return message;
+    }
+}
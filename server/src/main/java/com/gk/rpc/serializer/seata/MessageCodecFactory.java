@@ -0,0 +1,155 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.serializer.seata;
+
+import com.gk.rpc.protocol.GlobalBeginResponse;
+import com.gk.rpc.protocol.HeartbeatMessage;
+import com.gk.rpc.protocol.MessageType;
+import com.gk.rpc.protocol.RegisterRMRequest;
+import com.gk.rpc.protocol.RegisterRMResponse;
+import com.gk.rpc.protocol.RegisterTMRequest;
+import com.gk.rpc.protocol.RegisterTMResponse;
+import io.netty.buffer.ByteBuf;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The codec table of {@link SeataSerializer}, indexed by message type code.
+ * <p>
+ * Codecs of the messages defined in this module are registered up front, codecs of other message
+ * types are added through {@link #registerCodec(short, MessageSeataCodec)} at startup.
+ */
+public final class MessageCodecFactory {
+
+    private static final int MAX_TYPE_CODE = 256;
+
+    private static final AtomicReferenceArray<MessageSeataCodec<?>> CODECS = new AtomicReferenceArray<>(MAX_TYPE_CODE);
+
+    static {
+        registerCodec(MessageType.TYPE_REG_RM, new AbstractIdentifyRequestCodec<RegisterRMRequest>() {
+            @Override
+            protected RegisterRMRequest newMessage() {
+                return new RegisterRMRequest();
+            }
+
+            @Override
+            public void encode(RegisterRMRequest message, ByteBuf out) {
+                super.encode(message, out);
+                writeText(out, message.getResourceIds());
+            }
+
+            @Override
+            public RegisterRMRequest decode(ByteBuf in) {
+                RegisterRMRequest message = super.decode(in);
+                message.setResourceIds(readText(in));
+                return message;
+            }
+        });
+        registerCodec(MessageType.TYPE_REG_CLT, new AbstractIdentifyRequestCodec<RegisterTMRequest>() {
+            @Override
+            protected RegisterTMRequest newMessage() {
+                return new RegisterTMRequest();
+            }
+        });
+        registerCodec(MessageType.TYPE_REG_RM_RESULT, new AbstractIdentifyResponseCodec<RegisterRMResponse>() {
+            @Override
+            protected RegisterRMResponse newMessage() {
+                return new RegisterRMResponse();
+            }
+        });
+        registerCodec(MessageType.TYPE_REG_CLT_RESULT, new AbstractIdentifyResponseCodec<RegisterTMResponse>() {
+            @Override
+            protected RegisterTMResponse newMessage() {
+                return new RegisterTMResponse();
+            }
+        });
+        registerCodec(MessageType.TYPE_GLOBAL_BEGIN_RESULT, new AbstractTransactionResponseCodec<GlobalBeginResponse>() {
+            @Override
+            protected GlobalBeginResponse newMessage() {
+                return new GlobalBeginResponse();
+            }
+
+            @Override
+            public void encode(GlobalBeginResponse message, ByteBuf out) {
+                super.encode(message, out);
+                writeString(out, message.getXid());
+                writeText(out, message.getExtraData());
+            }
+
+            @Override
+            public GlobalBeginResponse decode(ByteBuf in) {
+                GlobalBeginResponse message = super.decode(in);
+                message.setXid(readString(in));
+                message.setExtraData(readText(in));
+                return message;
+            }
+        });
+        registerCodec(MessageType.TYPE_SEATA_MERGE, new MergedWarpMessageCodec());
+        registerCodec(MessageType.TYPE_SEATA_MERGE_RESULT, new MergeResultMessageCodec());
+        registerCodec(MessageType.TYPE_BATCH_RESULT_MSG, new BatchResultMessageCodec());
+        registerCodec(MessageType.TYPE_HEARTBEAT_MSG, new AbstractMessageCodec<HeartbeatMessage>() {
+            @Override
+            public void encode(HeartbeatMessage message, ByteBuf out) {
+                out.writeBoolean(message.isPing());
+            }
+
+            @Override
+            public HeartbeatMessage decode(ByteBuf in) {
+                return in.readBoolean() ? HeartbeatMessage.PING : HeartbeatMessage.PONG;
+            }
+        });
+    }
+
+    private MessageCodecFactory() {
+    }
+
+    /**
+     * Register the codec of a message type, replacing any codec registered with the same type code.
+     * Only supposed to be called at startup time.
+     *
+     * @param typeCode the message type code
+     * @param codec    the codec
+     */
+    public static void registerCodec(short typeCode, MessageSeataCodec<?> codec) {
+        if (codec == null) {
+            throw new IllegalArgumentException("Codec registered cannot be null!");
+        }
+        CODECS.set(indexOf(typeCode), codec);
+    }
+
+    /**
+     * Get the codec of a message type.
+     *
+     * @param <T>      the message type
+     * @param typeCode the message type code
+     * @return the codec
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> MessageSeataCodec<T> getCodec(short typeCode) {
+        MessageSeataCodec<?> codec = CODECS.get(indexOf(typeCode));
+        if (codec == null) {
+            throw new IllegalArgumentException("not support typeCode," + typeCode);
+        }
+        return (MessageSeataCodec<T>) codec;
+    }
+
+    private static int indexOf(short typeCode) {
+        if (typeCode < 0 || typeCode >= MAX_TYPE_CODE) {
+            throw new IllegalArgumentException("typeCode out of range," + typeCode);
+        }
+        return typeCode;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.serializer.seata;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * The field codec of one message type, used by {@link SeataSerializer}.
+ *
+ * @param <T> the message type
+ */
+public interface MessageSeataCodec<T> {
+
+    /**
+     * Encode the fields of the message, without the type code prefix.
+     *
+     * @param message the message
+     * @param out     the ByteBuf to write to
+     */
+    void encode(T message, ByteBuf out);
+
+    /**
+     * Decode a message whose type code prefix has already been read.
+     *
+     * @param in the ByteBuf to read from
+     * @return the message
+     */
+    T decode(ByteBuf in);
+}
@@ -0,0 +1,60 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.serializer.seata;
+
+import com.gk.rpc.protocol.MessageTypeAware;
+import com.gk.rpc.serializer.Serializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.seata.loader.LoadLevel;
+
+/**
+ * The seata binary serializer.
+ * <p>
+ * A body is the 2 bytes type code of the message followed by its fields, written by the
+ * hand-written codec registered for that type in {@link MessageCodecFactory}. No reflection is
+ * involved, and the ByteBuf overloads read and write the frame buffer directly.
+ */
+@LoadLevel(name = "SEATA")
+public class SeataSerializer implements Serializer {
+
+    @Override
+    public <T> byte[] serialize(T t) {
+        ByteBuf out = Unpooled.buffer();
+        serialize(t, out);
+        byte[] bytes = new byte[out.readableBytes()];
+        out.readBytes(bytes);
+        return bytes;
+    }
+
+    @Override
+    public <T> void serialize(T t, ByteBuf out) {
+        if (!(t instanceof MessageTypeAware)) {
+            throw new IllegalArgumentException("not support message: " + (t == null ? null : t.getClass().getName()));
+        }
+        AbstractMessageCodec.writeMessage(out, (MessageTypeAware) t);
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes) {
+        return deserialize(Unpooled.wrappedBuffer(bytes));
+    }
+
+    @Override
+    public <T> T deserialize(ByteBuf in) {
+        return AbstractMessageCodec.readMessage(in);
+    }
+}
@@ -80,6 +80,12 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
 
     private final ArrayList<BranchSession> branchSessions = new ArrayList<>();
 
+    /**
+     * Guards branchSessions. A lock rather than synchronized, so a virtual thread waiting here does
+     * not pin its carrier thread.
+     */
+    private final Lock branchLock = new ReentrantLock();
+
     private GlobalSessionLock globalSessionLock = new GlobalSessionLock();
 
 
@@ -90,7 +96,12 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
      * @return the boolean
      */
     public boolean add(BranchSession branchSession) {
-        return branchSessions.add(branchSession);
+        branchLock.lock();
+        try {
+            return branchSessions.add(branchSession);
+        } finally {
+            branchLock.unlock();
+        }
     }
 
     /**
@@ -100,7 +111,12 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
      * @return the boolean
      */
     public boolean remove(BranchSession branchSession) {
-        return branchSessions.remove(branchSession);
+        branchLock.lock();
+        try {
+            return branchSessions.remove(branchSession);
+        } finally {
+            branchLock.unlock();
+        }
     }
 
     private Set<SessionLifecycleListener> lifecycleListeners = new HashSet<>();
@@ -111,12 +127,17 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
      * @return the boolean
      */
     public boolean canBeCommittedAsync() {
-        for (BranchSession branchSession : branchSessions) {
-            if (!branchSession.canBeCommittedAsync()) {
-                return false;
+        branchLock.lock();
+        try {
+            for (BranchSession branchSession : branchSessions) {
+                if (!branchSession.canBeCommittedAsync()) {
+                    return false;
+                }
             }
+            return true;
+        } finally {
+            branchLock.unlock();
         }
-        return true;
     }
 
     /**
@@ -125,12 +146,17 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
      * @return the boolean
      */
     public boolean hasATBranch() {
-        for (BranchSession branchSession : branchSessions) {
-            if (branchSession.getBranchType() == BranchType.AT) {
-                return true;
+        branchLock.lock();
+        try {
+            for (BranchSession branchSession : branchSessions) {
+                if (branchSession.getBranchType() == BranchType.AT) {
+                    return true;
+                }
             }
+            return false;
+        } finally {
+            branchLock.unlock();
         }
-        return false;
     }
 
     /**
@@ -139,12 +165,16 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
      * @return is saga
      */
     public boolean isSaga() {
-        if (branchSessions.size() > 0) {
-            return BranchType.SAGA == branchSessions.get(0).getBranchType();
-        } else {
-            return StringUtils.isNotBlank(transactionName)
-                && transactionName.startsWith(Constants.SAGA_TRANS_NAME_PREFIX);
+        branchLock.lock();
+        try {
+            if (branchSessions.size() > 0) {
+                return BranchType.SAGA == branchSessions.get(0).getBranchType();
+            }
+        } finally {
+            branchLock.unlock();
         }
+        return StringUtils.isNotBlank(transactionName)
+            && transactionName.startsWith(Constants.SAGA_TRANS_NAME_PREFIX);
     }
 
     /**
@@ -282,7 +312,8 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
      * @return the branch
      */
     public BranchSession getBranch(long branchId) {
-        synchronized (branchSessions) {
+        branchLock.lock();
+        try {
             for (BranchSession branchSession : branchSessions) {
                 if (branchSession.getBranchId() == branchId) {
                     return branchSession;
@@ -290,6 +321,8 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
             }
 
             return null;
+        } finally {
+            branchLock.unlock();
         }
     }
 
@@ -299,7 +332,12 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
      * @return the sorted branches
      */
     public ArrayList<BranchSession> getSortedBranches() {
-        return new ArrayList<>(branchSessions);
+        branchLock.lock();
+        try {
+            return new ArrayList<>(branchSessions);
+        } finally {
+            branchLock.unlock();
+        }
     }
 
     /**
@@ -308,7 +346,7 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
      * @return the reverse sorted branches
      */
     public ArrayList<BranchSession> getReverseSortedBranches() {
-        ArrayList<BranchSession> reversed = new ArrayList<>(branchSessions);
+        ArrayList<BranchSession> reversed = getSortedBranches();
         Collections.reverse(reversed);
         return reversed;
     }
@@ -616,7 +654,12 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
      * @return the boolean
      */
     public boolean hasBranch() {
-        return branchSessions.size() > 0;
+        branchLock.lock();
+        try {
+            return branchSessions.size() > 0;
+        } finally {
+            branchLock.unlock();
+        }
     }
 
     public void lock() throws TransactionException {
@@ -661,8 +704,13 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
         V call() throws TransactionException;
     }
 
+    /**
+     * Gets a copy of the branch sessions, changes to it do not affect this session.
+     *
+     * @return the branch sessions
+     */
     public ArrayList<BranchSession> getBranchSessions() {
-        return branchSessions;
+        return getSortedBranches();
     }
 
     public void asyncCommit() throws TransactionException {
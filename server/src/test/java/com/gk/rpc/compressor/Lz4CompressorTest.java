@@ -0,0 +1,118 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.compressor;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * the type Lz4 compressor test
+ */
+public class Lz4CompressorTest {
+
+    private final Lz4Compressor compressor = new Lz4Compressor();
+
+    @Test
+    public void testBytesRoundTrip() {
+        byte[] bytes = sample(4096);
+        byte[] compressed = compressor.compress(bytes);
+        Assertions.assertTrue(compressed.length < bytes.length);
+        Assertions.assertArrayEquals(bytes, compressor.decompress(compressed));
+    }
+
+    @Test
+    public void testEmpty() {
+        byte[] compressed = compressor.compress(new byte[0]);
+        Assertions.assertArrayEquals(new byte[0], compressor.decompress(compressed));
+    }
+
+    @Test
+    public void testDirectByteBufRoundTrip() {
+        byte[] bytes = sample(4096);
+        ByteBuf in = Unpooled.directBuffer().writeBytes(bytes);
+        ByteBuf out = Unpooled.directBuffer();
+        ByteBuf decompressed = null;
+        try {
+            compressor.compress(in, out);
+            Assertions.assertEquals(0, in.readableBytes());
+            decompressed = compressor.decompress(out);
+            Assertions.assertEquals(0, out.readableBytes());
+            Assertions.assertArrayEquals(bytes, readAll(decompressed));
+        } finally {
+            in.release();
+            out.release();
+            if (decompressed != null) {
+                decompressed.release();
+            }
+        }
+    }
+
+    @Test
+    public void testByteBufAndBytesAreCompatible() {
+        byte[] bytes = sample(1024);
+        ByteBuf out = Unpooled.buffer();
+        try {
+            compressor.compress(Unpooled.wrappedBuffer(bytes), out);
+            Assertions.assertArrayEquals(bytes, compressor.decompress(readAll(out)));
+        } finally {
+            out.release();
+        }
+        ByteBuf decompressed = compressor.decompress(Unpooled.wrappedBuffer(compressor.compress(bytes)));
+        try {
+            Assertions.assertArrayEquals(bytes, readAll(decompressed));
+        } finally {
+            decompressed.release();
+        }
+    }
+
+    @Test
+    public void testCompositeByteBufFallsBack() {
+        byte[] bytes = sample(2048);
+        ByteBuf in = Unpooled.wrappedBuffer(Unpooled.wrappedBuffer(bytes, 0, 1024),
+            Unpooled.wrappedBuffer(bytes, 1024, 1024));
+        ByteBuf out = Unpooled.buffer();
+        try {
+            compressor.compress(in, out);
+            Assertions.assertArrayEquals(bytes, compressor.decompress(readAll(out)));
+        } finally {
+            in.release();
+            out.release();
+        }
+    }
+
+    /**
+     * A branch register like payload: repetitive text with some noise.
+     */
+    static byte[] sample(int length) {
+        Random random = new Random(length);
+        StringBuilder builder = new StringBuilder(length);
+        while (builder.length() < length) {
+            builder.append("jdbc:mysql://127.0.0.1:3306/seata^^^stock_tbl:").append(random.nextInt(1000)).append(';');
+        }
+        return builder.substring(0, length).getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] readAll(ByteBuf buf) {
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.readBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.compressor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * the type Zstd compressor test
+ */
+public class ZstdCompressorTest {
+
+    private final ZstdCompressor compressor = new ZstdCompressor();
+
+    @Test
+    public void testRoundTrip() {
+        byte[] bytes = Lz4CompressorTest.sample(4096);
+        byte[] compressed = compressor.compress(bytes);
+        Assertions.assertTrue(compressed.length < bytes.length);
+        Assertions.assertArrayEquals(bytes, compressor.decompress(compressed));
+    }
+
+    @Test
+    public void testEmpty() {
+        Assertions.assertArrayEquals(new byte[0], compressor.decompress(compressor.compress(new byte[0])));
+    }
+
+    @Test
+    public void testInvalidFrame() {
+        Assertions.assertThrows(RuntimeException.class, () -> compressor.decompress(new byte[] {1, 2, 3, 4}));
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty;
+
+import com.gk.rpc.compressor.CompressorType;
+import com.gk.rpc.netty.v1.LazyBody;
+import com.gk.rpc.protocol.HeartbeatMessage;
+import com.gk.rpc.protocol.MessageFuture;
+import com.gk.rpc.protocol.MessageType;
+import com.gk.rpc.protocol.ProtocolConstants;
+import com.gk.rpc.protocol.RpcMessage;
+import com.gk.rpc.serializer.Serializer;
+import com.gk.rpc.serializer.SerializerFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.seata.exception.FrameworkException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * the type Abstract netty remoting test, covering the request timeouts on the timer wheel and the
+ * dispatch of deferred bodies
+ */
+public class AbstractNettyRemotingTest {
+
+    /**
+     * A codec byte no real serializer uses, bound to {@link PingSerializer}.
+     */
+    private static final byte PING_CODEC = (byte) 0x7C;
+
+    private TestRemoting remoting;
+
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    public void setUp() {
+        remoting = new TestRemoting();
+        remoting.init();
+        channel = new EmbeddedChannel();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        remoting.destroy();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testRequestTimesOut() {
+        CompletableFuture<Object> response = remoting.sendRequest(channel, request(), 50).toCompletableFuture();
+
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+            () -> response.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(e.getCause() instanceof TimeoutException);
+        Assertions.assertEquals(0, remoting.getFutures().size());
+    }
+
+    @Test
+    public void testResponseBeforeTimeout() throws Exception {
+        RpcMessage request = request();
+        CompletableFuture<Object> response = remoting.sendRequest(channel, request, 200).toCompletableFuture();
+        Assertions.assertSame(request, channel.readOutbound());
+
+        remoting.getFutures().remove(request.getId()).setResultMessage("ok");
+        Assertions.assertEquals("ok", response.get(1, TimeUnit.SECONDS));
+
+        Thread.sleep(400);
+        Assertions.assertEquals("ok", response.get());
+        Assertions.assertEquals(0, remoting.getFutures().size());
+    }
+
+    @Test
+    public void testSendSyncTimesOut() {
+        Assertions.assertThrows(TimeoutException.class, () -> remoting.sendSync(channel, request(), 50));
+        Assertions.assertEquals(0, remoting.getFutures().size());
+    }
+
+    @Test
+    public void testStageFailsWithBareCause() throws Exception {
+        Object cause = remoting.sendRequest(channel, request(), 50).handle((result, e) -> e)
+            .toCompletableFuture().get(5, TimeUnit.SECONDS);
+        Assertions.assertTrue(cause instanceof TimeoutException);
+    }
+
+    @Test
+    public void testSendSyncRethrowsFrameworkException() {
+        FrameworkException failure = new FrameworkException("outbound queue is full");
+        RpcMessage request = request();
+        Thread responder = new Thread(() -> {
+            MessageFuture future;
+            while ((future = remoting.getFutures().remove(request.getId())) == null) {
+                Thread.yield();
+            }
+            future.setResultMessage(failure);
+        });
+        responder.start();
+
+        FrameworkException e = Assertions.assertThrows(FrameworkException.class,
+            () -> remoting.sendSync(channel, request, 5000));
+        Assertions.assertSame(failure, e);
+    }
+
+    @Test
+    public void testDestroyFailsPendingRequests() {
+        CompletableFuture<Object> response = remoting.sendRequest(channel, request(), 60000).toCompletableFuture();
+        Assertions.assertEquals(1, remoting.getFutures().size());
+
+        remoting.destroy();
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+            () -> response.get(1, TimeUnit.SECONDS));
+        Assertions.assertTrue(e.getCause() instanceof FrameworkException);
+        Assertions.assertEquals(0, remoting.getFutures().size());
+    }
+
+    @Test
+    public void testDeferredBodyIsProcessedAsATask() throws Exception {
+        SerializerFactory.registerSerializer(PING_CODEC, new PingSerializer());
+        TestRemoting lazyRemoting = new TestRemoting();
+        CountDownLatch processed = new CountDownLatch(1);
+        lazyRemoting.processorTable.register(MessageType.TYPE_HEARTBEAT_MSG, (ctx, rpcMessage) -> {
+            Assertions.assertSame(HeartbeatMessage.PING, rpcMessage.getBody());
+            processed.countDown();
+        }, lazyRemoting.messageExecutor);
+        lazyRemoting.init();
+        try {
+            Constructor<LazyBody> constructor = LazyBody.class.getDeclaredConstructor(byte.class, byte.class,
+                ByteBuf.class);
+            constructor.setAccessible(true);
+            RpcMessage rpcMessage = new RpcMessage();
+            rpcMessage.setBody(constructor.newInstance(PING_CODEC, CompressorType.NONE.getCode(),
+                Unpooled.wrappedBuffer(new byte[] {1})));
+            lazyRemoting.processMessage(Mockito.mock(ChannelHandlerContext.class), rpcMessage);
+
+            Assertions.assertTrue(processed.await(5, TimeUnit.SECONDS));
+            // the task records its timings once the processor returned, on the same single thread
+            lazyRemoting.messageExecutor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+            ProcessorTable.Entry entry = lazyRemoting.processorTable.get(MessageType.TYPE_HEARTBEAT_MSG);
+            Assertions.assertEquals(1, entry.getDispatchedCount());
+            Assertions.assertTrue(entry.getQueueWaitNanos() > 0);
+            Assertions.assertTrue(lazyRemoting.getAdmissionController()
+                .getLatencyNanos(MessageType.TYPE_HEARTBEAT_MSG) > 0);
+        } finally {
+            lazyRemoting.destroy();
+        }
+    }
+
+    private RpcMessage request() {
+        RpcMessage rpcMessage = new RpcMessage();
+        rpcMessage.setId(remoting.getNextMessageId());
+        rpcMessage.setMessageType(ProtocolConstants.MSGTYPE_RESQUEST_SYNC);
+        rpcMessage.setBody("request");
+        return rpcMessage;
+    }
+
+    /**
+     * Deserializes any bytes to a PING.
+     */
+    private static final class PingSerializer implements Serializer {
+
+        @Override
+        public <T> byte[] serialize(T t) {
+            return new byte[] {1};
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T deserialize(byte[] bytes) {
+            return (T) HeartbeatMessage.PING;
+        }
+    }
+
+    private static final class TestRemoting extends AbstractNettyRemoting {
+
+        private TestRemoting() {
+            super(Executors.newSingleThreadExecutor());
+        }
+
+        @Override
+        public void destroyChannel(String serverAddress, Channel channel) {
+            channel.close();
+        }
+    }
+}
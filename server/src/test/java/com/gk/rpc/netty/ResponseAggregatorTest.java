@@ -0,0 +1,185 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty;
+
+import com.gk.rpc.protocol.BatchResultMessage;
+import com.gk.rpc.protocol.ProtocolConstants;
+import com.gk.rpc.protocol.RegisterTMResponse;
+import com.gk.rpc.protocol.RpcMessage;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.seata.exception.FrameworkException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the type Response aggregator test, covering when a batch is sent and how responses are split
+ */
+public class ResponseAggregatorTest {
+
+    private static final byte CODEC_A = 1;
+
+    private static final byte CODEC_B = 2;
+
+    private TestRemoting remoting;
+
+    private EmbeddedChannel channel;
+
+    private ResponseAggregator aggregator;
+
+    @BeforeEach
+    public void setUp() {
+        remoting = new TestRemoting();
+        channel = new EmbeddedChannel();
+        channel.attr(ResponseAggregator.BATCH_OUTBOUND).set(true);
+        aggregator = ResponseAggregator.of(channel, remoting);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        remoting.destroy();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testWithoutNegotiationThereIsNoAggregator() {
+        EmbeddedChannel plain = new EmbeddedChannel();
+        Assertions.assertNull(ResponseAggregator.of(plain, remoting));
+        Assertions.assertSame(aggregator, ResponseAggregator.of(channel, remoting));
+        plain.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testResponsesWaitForTheWindow() {
+        for (int id = 1; id <= 3; id++) {
+            aggregator.offer(request(id, CODEC_A), new RegisterTMResponse(true));
+        }
+        // nothing is sent from the offering thread, the flush waits on the event loop
+        Assertions.assertTrue(remoting.sent.isEmpty());
+        awaitWindow();
+
+        RpcMessage sent = remoting.sent.poll();
+        Assertions.assertEquals(ProtocolConstants.MSGTYPE_RESPONSE, sent.getMessageType());
+        Assertions.assertEquals(Arrays.asList(1, 2, 3), ((BatchResultMessage) sent.getBody()).getMsgIds());
+        Assertions.assertNull(remoting.sent.poll());
+    }
+
+    @Test
+    public void testMaxSizeFlushesAtOnceAndSplits() {
+        int count = ResponseAggregator.MAX_SIZE + 3;
+        for (int id = 1; id <= count; id++) {
+            aggregator.offer(request(id, CODEC_A), new RegisterTMResponse(true));
+        }
+        // the flush queued by the full batch drains everything, without waiting for the window
+        channel.runPendingTasks();
+
+        RpcMessage full = remoting.sent.poll();
+        Assertions.assertEquals(ResponseAggregator.MAX_SIZE,
+            ((BatchResultMessage) full.getBody()).getMsgIds().size());
+        RpcMessage rest = remoting.sent.poll();
+        Assertions.assertEquals(Arrays.asList(count - 2, count - 1, count),
+            ((BatchResultMessage) rest.getBody()).getMsgIds());
+        Assertions.assertNull(remoting.sent.poll());
+    }
+
+    @Test
+    public void testMixedCodecsSplitTheBatch() {
+        byte[] codecs = {CODEC_A, CODEC_A, CODEC_B, CODEC_A};
+        for (int i = 0; i < codecs.length; i++) {
+            aggregator.offer(request(i + 1, codecs[i]), new RegisterTMResponse(true));
+        }
+        awaitWindow();
+
+        RpcMessage first = remoting.sent.poll();
+        Assertions.assertEquals(CODEC_A, first.getCodec());
+        Assertions.assertEquals(Arrays.asList(1, 2), ((BatchResultMessage) first.getBody()).getMsgIds());
+        // a lone response goes out plain, with the id of its request
+        RpcMessage second = remoting.sent.poll();
+        Assertions.assertEquals(CODEC_B, second.getCodec());
+        Assertions.assertEquals(3, second.getId());
+        Assertions.assertTrue(second.getBody() instanceof RegisterTMResponse);
+        RpcMessage third = remoting.sent.poll();
+        Assertions.assertEquals(CODEC_A, third.getCodec());
+        Assertions.assertEquals(4, third.getId());
+        Assertions.assertNull(remoting.sent.poll());
+    }
+
+    @Test
+    public void testRejectedBatchDoesNotStopTheDrain() {
+        remoting.rejectNext = true;
+        aggregator.offer(request(1, CODEC_A), new RegisterTMResponse(true));
+        aggregator.offer(request(2, CODEC_B), new RegisterTMResponse(true));
+        awaitWindow();
+
+        RpcMessage sent = remoting.sent.poll();
+        Assertions.assertEquals(2, sent.getId());
+        Assertions.assertNull(remoting.sent.poll());
+    }
+
+    /**
+     * Run the scheduled flush of the channel's event loop once the window passed.
+     */
+    private void awaitWindow() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (remoting.sent.isEmpty() && System.nanoTime() < deadline) {
+            channel.runPendingTasks();
+        }
+    }
+
+    private static RpcMessage request(int id, byte codec) {
+        RpcMessage rpcMessage = new RpcMessage();
+        rpcMessage.setId(id);
+        rpcMessage.setMessageType(ProtocolConstants.MSGTYPE_RESQUEST_SYNC);
+        rpcMessage.setCodec(codec);
+        return rpcMessage;
+    }
+
+    private static final class TestRemoting extends AbstractNettyRemoting {
+
+        private final Queue<RpcMessage> sent = new ArrayDeque<>();
+
+        private boolean rejectNext;
+
+        private TestRemoting() {
+            super(Executors.newSingleThreadExecutor());
+        }
+
+        @Override
+        protected ChannelFuture sendAsync(Channel channel, RpcMessage rpcMessage) {
+            if (rejectNext) {
+                rejectNext = false;
+                throw new FrameworkException("outbound queue is full");
+            }
+            // record instead of writing, an embedded channel would run the pending flushes inside the write
+            sent.add(rpcMessage);
+            return channel.newSucceededFuture();
+        }
+
+        @Override
+        public void destroyChannel(String serverAddress, Channel channel) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty;
+
+import com.gk.rpc.protocol.ProtocolConstants;
+import com.gk.rpc.protocol.RpcMessage;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.EventExecutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the type Write coalescing handler test, driving the handler through a context whose executor
+ * only queues the tasks, so the test decides when a deferred flush runs
+ */
+public class WriteCoalescingHandlerTest {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private final List<Long> delays = new ArrayList<>();
+
+    private ChannelHandlerContext ctx;
+
+    @BeforeEach
+    public void setUp() {
+        EventExecutor executor = Mockito.mock(EventExecutor.class);
+        Mockito.doAnswer(invocation -> tasks.add(invocation.getArgument(0)))
+            .when(executor).execute(ArgumentMatchers.any(Runnable.class));
+        Mockito.doAnswer(invocation -> {
+            tasks.add(invocation.getArgument(0));
+            delays.add(((TimeUnit) invocation.getArgument(2)).toNanos(invocation.getArgument(1)));
+            return null;
+        }).when(executor).schedule(ArgumentMatchers.any(Runnable.class), ArgumentMatchers.anyLong(),
+            ArgumentMatchers.any(TimeUnit.class));
+        ctx = Mockito.mock(ChannelHandlerContext.class);
+        Mockito.when(ctx.executor()).thenReturn(executor);
+    }
+
+    @Test
+    public void testOnewayFlushesAreMerged() throws Exception {
+        WriteCoalescingHandler handler = newHandler(0);
+        long requested = WriteCoalescingHandler.getRequestedFlushCount();
+        long actual = WriteCoalescingHandler.getActualFlushCount();
+
+        for (int i = 0; i < 3; i++) {
+            writeAndFlush(handler, ProtocolConstants.MSGTYPE_RESQUEST_ONEWAY);
+        }
+        Mockito.verify(ctx, Mockito.never()).flush();
+        Assertions.assertEquals(1, tasks.size());
+
+        runTasks();
+        Mockito.verify(ctx, Mockito.times(1)).flush();
+        Mockito.verify(ctx, Mockito.times(3)).write(ArgumentMatchers.any(), ArgumentMatchers.any());
+        Assertions.assertEquals(3, WriteCoalescingHandler.getRequestedFlushCount() - requested);
+        Assertions.assertEquals(1, WriteCoalescingHandler.getActualFlushCount() - actual);
+    }
+
+    @Test
+    public void testLatencyCriticalTypesFlushAtOnce() throws Exception {
+        byte[] types = {ProtocolConstants.MSGTYPE_RESQUEST_SYNC, ProtocolConstants.MSGTYPE_RESPONSE,
+            ProtocolConstants.MSGTYPE_HEARTBEAT_REQUEST, ProtocolConstants.MSGTYPE_HEARTBEAT_RESPONSE};
+        for (byte type : types) {
+            Mockito.clearInvocations(ctx);
+            WriteCoalescingHandler handler = newHandler(0);
+
+            handler.write(ctx, message(ProtocolConstants.MSGTYPE_RESQUEST_ONEWAY), promise());
+            writeAndFlush(handler, type);
+            // the pending one-way request goes out with it
+            Mockito.verify(ctx, Mockito.times(1)).flush();
+            Assertions.assertTrue(tasks.isEmpty(), "message type " + type);
+        }
+    }
+
+    @Test
+    public void testFlushDuringReadWaitsForReadComplete() throws Exception {
+        WriteCoalescingHandler handler = newHandler(0);
+
+        handler.channelRead(ctx, new Object());
+        writeAndFlush(handler, ProtocolConstants.MSGTYPE_RESQUEST_ONEWAY);
+        writeAndFlush(handler, ProtocolConstants.MSGTYPE_RESQUEST_ONEWAY);
+        Assertions.assertTrue(tasks.isEmpty());
+        Mockito.verify(ctx, Mockito.never()).flush();
+
+        handler.channelReadComplete(ctx);
+        Mockito.verify(ctx, Mockito.times(1)).flush();
+    }
+
+    @Test
+    public void testWindowDelaysTheFlush() throws Exception {
+        WriteCoalescingHandler handler = newHandler(1000);
+
+        writeAndFlush(handler, ProtocolConstants.MSGTYPE_RESQUEST_ONEWAY);
+        writeAndFlush(handler, ProtocolConstants.MSGTYPE_RESQUEST_ONEWAY);
+        Assertions.assertEquals(1, tasks.size());
+        Assertions.assertEquals(TimeUnit.MICROSECONDS.toNanos(1000), delays.get(0));
+        Mockito.verify(ctx, Mockito.never()).flush();
+
+        runTasks();
+        Mockito.verify(ctx, Mockito.times(1)).flush();
+    }
+
+    @Test
+    public void testCloseFlushesPending() throws Exception {
+        WriteCoalescingHandler handler = newHandler(0);
+
+        writeAndFlush(handler, ProtocolConstants.MSGTYPE_RESQUEST_ONEWAY);
+        handler.close(ctx, promise());
+        Mockito.verify(ctx, Mockito.times(1)).flush();
+
+        // the deferred task finds nothing left to flush
+        runTasks();
+        Mockito.verify(ctx, Mockito.times(1)).flush();
+    }
+
+    private WriteCoalescingHandler newHandler(long windowMicros) {
+        WriteCoalescingHandler handler = new WriteCoalescingHandler(windowMicros);
+        handler.handlerAdded(ctx);
+        return handler;
+    }
+
+    private void writeAndFlush(WriteCoalescingHandler handler, byte messageType) throws Exception {
+        handler.write(ctx, message(messageType), promise());
+        handler.flush(ctx);
+    }
+
+    private void runTasks() {
+        List<Runnable> queued = new ArrayList<>(tasks);
+        tasks.clear();
+        queued.forEach(Runnable::run);
+    }
+
+    private static ChannelPromise promise() {
+        return Mockito.mock(ChannelPromise.class);
+    }
+
+    private static RpcMessage message(byte messageType) {
+        RpcMessage rpcMessage = new RpcMessage();
+        rpcMessage.setMessageType(messageType);
+        return rpcMessage;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty.v1;
+
+import com.gk.rpc.compressor.CompressorType;
+import com.gk.rpc.protocol.RpcMessage;
+import com.gk.rpc.serializer.Serializer;
+import com.gk.rpc.serializer.SerializerFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+
+/**
+ * the type Body codec test, covering the compress threshold and the compressor byte rewrite
+ */
+public class BodyCodecTest {
+
+    /**
+     * A codec byte no real serializer uses, bound to {@link BytesSerializer}.
+     */
+    static final byte BYTES_CODEC = (byte) 0x7F;
+
+    private static final int COMPRESSOR_INDEX = 0;
+
+    private static ChannelHandlerContext ctx;
+
+    @BeforeAll
+    public static void setUp() {
+        SerializerFactory.registerSerializer(BYTES_CODEC, new BytesSerializer());
+        ctx = Mockito.mock(ChannelHandlerContext.class);
+        Mockito.when(ctx.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
+    }
+
+    @Test
+    public void testBelowThresholdIsWrittenRaw() {
+        byte[] body = body(100);
+        ByteBuf out = frameStart(CompressorType.LZ4);
+        try {
+            int length = BodyCodec.encode(ctx, message(body, CompressorType.LZ4), out, COMPRESSOR_INDEX, 1024);
+            Assertions.assertEquals(body.length, length);
+            Assertions.assertEquals(CompressorType.NONE.getCode(), out.getByte(COMPRESSOR_INDEX));
+            Assertions.assertArrayEquals(body, decode(out));
+        } finally {
+            out.release();
+        }
+    }
+
+    @Test
+    public void testAtThresholdIsCompressed() {
+        byte[] body = body(4096);
+        ByteBuf out = frameStart(CompressorType.LZ4);
+        try {
+            int length = BodyCodec.encode(ctx, message(body, CompressorType.LZ4), out, COMPRESSOR_INDEX, 4096);
+            Assertions.assertTrue(length < body.length);
+            Assertions.assertEquals(CompressorType.LZ4.getCode(), out.getByte(COMPRESSOR_INDEX));
+            Assertions.assertArrayEquals(body, decode(out));
+        } finally {
+            out.release();
+        }
+    }
+
+    @Test
+    public void testZeroThresholdCompressesEverything() {
+        byte[] body = body(8);
+        ByteBuf out = frameStart(CompressorType.LZ4);
+        try {
+            BodyCodec.encode(ctx, message(body, CompressorType.LZ4), out, COMPRESSOR_INDEX, 0);
+            Assertions.assertEquals(CompressorType.LZ4.getCode(), out.getByte(COMPRESSOR_INDEX));
+            Assertions.assertArrayEquals(body, decode(out));
+        } finally {
+            out.release();
+        }
+    }
+
+    @Test
+    public void testNoneCompressor() {
+        byte[] body = body(4096);
+        ByteBuf out = frameStart(CompressorType.NONE);
+        try {
+            int length = BodyCodec.encode(ctx, message(body, CompressorType.NONE), out, COMPRESSOR_INDEX, 0);
+            Assertions.assertEquals(body.length, length);
+            Assertions.assertArrayEquals(body, decode(out));
+        } finally {
+            out.release();
+        }
+    }
+
+    /**
+     * The out buffer starts with the compressor byte, like the head of a frame.
+     */
+    private static ByteBuf frameStart(CompressorType compressor) {
+        return Unpooled.buffer().writeByte(compressor.getCode());
+    }
+
+    private static RpcMessage message(byte[] body, CompressorType compressor) {
+        RpcMessage rpcMessage = new RpcMessage();
+        rpcMessage.setCodec(BYTES_CODEC);
+        rpcMessage.setCompressor(compressor.getCode());
+        rpcMessage.setBody(body);
+        return rpcMessage;
+    }
+
+    private static byte[] decode(ByteBuf out) {
+        byte compressor = out.getByte(COMPRESSOR_INDEX);
+        return (byte[]) BodyCodec.decode(BYTES_CODEC, compressor, out.slice(1, out.readableBytes() - 1));
+    }
+
+    private static byte[] body(int length) {
+        byte[] body = new byte[length];
+        Arrays.fill(body, (byte) 'a');
+        return body;
+    }
+
+    /**
+     * Writes a byte[] body as is.
+     */
+    static final class BytesSerializer implements Serializer {
+
+        @Override
+        public <T> byte[] serialize(T t) {
+            return (byte[]) t;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T deserialize(byte[] bytes) {
+            return (T) bytes;
+        }
+    }
+}
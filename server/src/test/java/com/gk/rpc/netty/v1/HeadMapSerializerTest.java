@@ -0,0 +1,148 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty.v1;
+
+import com.gk.rpc.context.RootContext;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * the type Head map serializer test
+ */
+public class HeadMapSerializerTest {
+
+    private final HeadMapSerializer serializer = HeadMapSerializer.getInstance();
+
+    @Test
+    public void testPlainRoundTrip() {
+        Map<String, String> map = sampleHead("192.168.0.1:8091:1");
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            int length = serializer.encode(map, buf);
+            Assertions.assertEquals(length, buf.readableBytes());
+            Assertions.assertEquals(map, serializer.decode(buf, length));
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testCompactRoundTripOverSeveralFrames() {
+        HeadMapTable outbound = HeadMapTable.forEncoder();
+        HeadMapTable inbound = HeadMapTable.forDecoder();
+
+        int firstLength = 0;
+        for (int i = 0; i < 3; i++) {
+            Map<String, String> map = sampleHead("192.168.0.1:8091:" + i);
+            ByteBuf buf = Unpooled.buffer();
+            try {
+                int length = serializer.encode(map, buf, outbound);
+                Map<String, String> decoded = serializer.decode(buf, length, inbound);
+                Assertions.assertEquals(map, decoded);
+                Assertions.assertEquals(0, buf.readableBytes());
+                if (i == 0) {
+                    firstLength = length;
+                } else {
+                    // the tenant pair is sent as two indexes once both tables hold it
+                    Assertions.assertTrue(length < firstLength);
+                }
+            } finally {
+                buf.release();
+            }
+        }
+    }
+
+    @Test
+    public void testXidIsNotIndexed() {
+        HeadMapTable outbound = HeadMapTable.forEncoder();
+        Map<String, String> map = new HashMap<>();
+        map.put(RootContext.KEY_XID, "192.168.0.1:8091:1");
+
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            int first = serializer.encode(map, buf, outbound);
+            int second = serializer.encode(map, buf, outbound);
+            Assertions.assertEquals(first, second);
+            Assertions.assertEquals(-1, outbound.indexOf("192.168.0.1:8091:1"));
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testNullAndLongValues() {
+        HeadMapTable outbound = HeadMapTable.forEncoder();
+        HeadMapTable inbound = HeadMapTable.forDecoder();
+        StringBuilder longValue = new StringBuilder();
+        for (int i = 0; i <= HeadMapTable.MAX_INDEXED_LENGTH; i++) {
+            longValue.append('x');
+        }
+        Map<String, String> map = new HashMap<>();
+        map.put("nullable", null);
+        map.put("long", longValue.toString());
+        map.put("empty", "");
+
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            int length = serializer.encode(map, buf, outbound);
+            Assertions.assertEquals(map, serializer.decode(buf, length, inbound));
+            Assertions.assertEquals(-1, outbound.indexOf(longValue.toString()));
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testNullTableFallsBackToPlain() {
+        Map<String, String> map = sampleHead("192.168.0.1:8091:1");
+        ByteBuf compact = Unpooled.buffer();
+        ByteBuf plain = Unpooled.buffer();
+        try {
+            serializer.encode(map, compact, null);
+            serializer.encode(map, plain);
+            Assertions.assertEquals(plain, compact);
+        } finally {
+            compact.release();
+            plain.release();
+        }
+    }
+
+    @Test
+    public void testLengthMismatchIsRejected() {
+        Map<String, String> map = sampleHead("192.168.0.1:8091:1");
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            int length = serializer.encode(map, buf, HeadMapTable.forEncoder());
+            buf.writeByte(0);
+            Assertions.assertThrows(IllegalArgumentException.class,
+                () -> serializer.decode(buf, length + 1, HeadMapTable.forDecoder()));
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static Map<String, String> sampleHead(String xid) {
+        Map<String, String> map = new HashMap<>();
+        map.put(RootContext.KEY_XID, xid);
+        map.put("tenant", "tenant-a");
+        return map;
+    }
+}
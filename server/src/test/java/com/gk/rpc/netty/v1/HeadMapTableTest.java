@@ -0,0 +1,100 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty.v1;
+
+import com.gk.rpc.context.RootContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * the type Head map table test
+ */
+public class HeadMapTableTest {
+
+    @Test
+    public void testStaticEntries() {
+        HeadMapTable encoder = HeadMapTable.forEncoder();
+        HeadMapTable decoder = HeadMapTable.forDecoder();
+
+        int index = encoder.indexOf(RootContext.KEY_XID);
+        Assertions.assertTrue(index >= 0);
+        Assertions.assertEquals(RootContext.KEY_XID, decoder.get(index));
+        Assertions.assertEquals(-1, encoder.indexOf("unknown"));
+    }
+
+    @Test
+    public void testDynamicEntriesAgree() {
+        HeadMapTable encoder = HeadMapTable.forEncoder();
+        HeadMapTable decoder = HeadMapTable.forDecoder();
+
+        encoder.add("tenant");
+        decoder.add("tenant");
+        encoder.add("region");
+        decoder.add("region");
+
+        Assertions.assertEquals("tenant", decoder.get(encoder.indexOf("tenant")));
+        Assertions.assertEquals("region", decoder.get(encoder.indexOf("region")));
+        Assertions.assertNotEquals(encoder.indexOf("tenant"), encoder.indexOf("region"));
+    }
+
+    @Test
+    public void testOldestEntryIsEvicted() {
+        HeadMapTable encoder = HeadMapTable.forEncoder();
+        HeadMapTable decoder = HeadMapTable.forDecoder();
+
+        for (int i = 0; i <= HeadMapTable.DYNAMIC_CAPACITY; i++) {
+            encoder.add("value-" + i);
+            decoder.add("value-" + i);
+        }
+
+        Assertions.assertEquals(-1, encoder.indexOf("value-0"));
+        int reused = encoder.indexOf("value-" + HeadMapTable.DYNAMIC_CAPACITY);
+        Assertions.assertEquals("value-" + HeadMapTable.DYNAMIC_CAPACITY, decoder.get(reused));
+        Assertions.assertEquals("value-1", decoder.get(encoder.indexOf("value-1")));
+    }
+
+    @Test
+    public void testEvictingStaleCopyKeepsNewerIndex() {
+        HeadMapTable encoder = HeadMapTable.forEncoder();
+        HeadMapTable decoder = HeadMapTable.forDecoder();
+        String[] values = new String[HeadMapTable.DYNAMIC_CAPACITY + 1];
+        values[0] = "value";
+        values[1] = "other";
+        values[2] = "value";
+        for (int i = 3; i < values.length; i++) {
+            values[i] = "filler-" + i;
+        }
+        for (String value : values) {
+            encoder.add(value);
+            decoder.add(value);
+        }
+
+        // the slot of the first copy was reused, the second copy must still be found
+        int index = encoder.indexOf("value");
+        Assertions.assertTrue(index >= 0);
+        Assertions.assertEquals("value", decoder.get(index));
+    }
+
+    @Test
+    public void testUnknownIndexIsRejected() {
+        HeadMapTable encoder = HeadMapTable.forEncoder();
+        HeadMapTable decoder = HeadMapTable.forDecoder();
+        encoder.add("only-on-encoder");
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> decoder.get(encoder.indexOf("only-on-encoder")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> decoder.get(1000));
+    }
+}
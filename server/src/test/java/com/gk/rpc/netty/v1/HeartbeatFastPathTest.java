@@ -0,0 +1,72 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty.v1;
+
+import com.gk.rpc.protocol.ProtocolConstants;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * the type Heartbeat fast path test
+ */
+public class HeartbeatFastPathTest {
+
+    @Test
+    public void testPlainPing() {
+        ByteBuf frame = ping(ProtocolConstants.MSGTYPE_HEARTBEAT_REQUEST, 0);
+        Assertions.assertTrue(HeartbeatFastPath.isPing(frame));
+        frame.release();
+    }
+
+    @Test
+    public void testPingWithHeadMapIsDecoded() {
+        ByteBuf frame = ping(ProtocolConstants.MSGTYPE_HEARTBEAT_REQUEST, 4);
+        Assertions.assertFalse(HeartbeatFastPath.isPing(frame));
+        frame.release();
+
+        frame = ping((byte) (ProtocolConstants.MSGTYPE_HEARTBEAT_REQUEST
+            | ProtocolConstants.MSGTYPE_FLAG_COMPACT_HEAD_MAP), 4);
+        Assertions.assertFalse(HeartbeatFastPath.isPing(frame));
+        frame.release();
+    }
+
+    @Test
+    public void testOtherMessageType() {
+        ByteBuf frame = ping(ProtocolConstants.MSGTYPE_RESQUEST_SYNC, 0);
+        Assertions.assertFalse(HeartbeatFastPath.isPing(frame));
+        frame.release();
+    }
+
+    /**
+     * A PING frame with a head map of the given length, the map bytes are zero.
+     */
+    private static ByteBuf ping(byte messageType, int headMapLength) {
+        int headLength = ProtocolConstants.V1_HEAD_LENGTH + headMapLength;
+        ByteBuf frame = Unpooled.buffer(headLength);
+        frame.writeBytes(ProtocolConstants.MAGIC_CODE_BYTES);
+        frame.writeByte(ProtocolConstants.VERSION);
+        frame.writeInt(headLength);
+        frame.writeShort(headLength);
+        frame.writeByte(messageType);
+        frame.writeByte(0);
+        frame.writeByte(0);
+        frame.writeInt(7);
+        frame.writeZero(headMapLength);
+        return frame;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty.v1;
+
+import com.gk.rpc.compressor.CompressorType;
+import com.gk.rpc.protocol.ProtocolConstants;
+import com.gk.rpc.protocol.RpcMessage;
+import com.gk.rpc.serializer.Serializer;
+import com.gk.rpc.serializer.SerializerFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.EncoderException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * the type Protocol v1 encoder test
+ */
+public class ProtocolV1EncoderTest {
+
+    /**
+     * A codec byte no real serializer uses, bound to {@link FailingSerializer}.
+     */
+    private static final byte FAILING_CODEC = (byte) 0x7D;
+
+    @BeforeAll
+    public static void setUp() {
+        SerializerFactory.registerSerializer(FAILING_CODEC, new FailingSerializer());
+    }
+
+    @Test
+    public void testFailedBodyFailsTheWriteWithoutAFrame() {
+        EmbeddedChannel encoder = new EmbeddedChannel(new ProtocolV1Encoder());
+        ChannelFuture failed = encoder.writeOneOutbound(request(1, FailingSerializer.FAIL));
+        encoder.flushOutbound();
+
+        Assertions.assertFalse(failed.isSuccess());
+        Assertions.assertTrue(failed.cause() instanceof EncoderException);
+        Assertions.assertNull(encoder.readOutbound());
+        Assertions.assertFalse(encoder.finish());
+    }
+
+    @Test
+    public void testFramesAroundAFailedOneStayIntact() {
+        EmbeddedChannel encoder = new EmbeddedChannel(new ProtocolV1Encoder());
+        ChannelFuture first = encoder.writeOneOutbound(request(1, "first"));
+        ChannelFuture failed = encoder.writeOneOutbound(request(2, FailingSerializer.FAIL));
+        ChannelFuture third = encoder.writeOneOutbound(request(3, "third"));
+        encoder.flushOutbound();
+        Assertions.assertTrue(first.isSuccess());
+        Assertions.assertFalse(failed.isSuccess());
+        Assertions.assertTrue(third.isSuccess());
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new ProtocolV1Decoder());
+        ByteBuf frame;
+        while ((frame = encoder.readOutbound()) != null) {
+            decoder.writeInbound(frame);
+        }
+        assertRequest(decoder.readInbound(), 1, "first");
+        assertRequest(decoder.readInbound(), 3, "third");
+        Assertions.assertNull(decoder.readInbound());
+        Assertions.assertFalse(decoder.finish());
+    }
+
+    private static void assertRequest(RpcMessage message, int id, String body) {
+        Assertions.assertEquals(id, message.getId());
+        Assertions.assertEquals(body, message.getBody());
+    }
+
+    private static RpcMessage request(int id, String body) {
+        RpcMessage rpcMessage = new RpcMessage();
+        rpcMessage.setId(id);
+        rpcMessage.setMessageType(ProtocolConstants.MSGTYPE_RESQUEST_SYNC);
+        rpcMessage.setCodec(FAILING_CODEC);
+        rpcMessage.setCompressor(CompressorType.NONE.getCode());
+        rpcMessage.setBody(body);
+        return rpcMessage;
+    }
+
+    /**
+     * Serializes strings as UTF-8, failing on {@link #FAIL}.
+     */
+    private static final class FailingSerializer implements Serializer {
+
+        private static final String FAIL = "fail";
+
+        @Override
+        public <T> byte[] serialize(T t) {
+            if (FAIL.equals(t)) {
+                throw new IllegalStateException("cannot serialize");
+            }
+            return ((String) t).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T deserialize(byte[] bytes) {
+            return (T) new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
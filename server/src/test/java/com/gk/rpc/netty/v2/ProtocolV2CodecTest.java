@@ -0,0 +1,201 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty.v2;
+
+import com.gk.rpc.compressor.CompressorType;
+import com.gk.rpc.netty.v1.HeadMapSerializer;
+import com.gk.rpc.protocol.HeartbeatMessage;
+import com.gk.rpc.protocol.ProtocolConstants;
+import com.gk.rpc.protocol.RpcMessage;
+import com.gk.rpc.serializer.Serializer;
+import com.gk.rpc.serializer.SerializerFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+/**
+ * the type Protocol v2 encoder and decoder test, covering frames which carry several messages
+ */
+public class ProtocolV2CodecTest {
+
+    /**
+     * A codec byte no real serializer uses, bound to {@link BytesSerializer}.
+     */
+    private static final byte BYTES_CODEC = (byte) 0x7E;
+
+    @BeforeAll
+    public static void setUp() {
+        SerializerFactory.registerSerializer(BYTES_CODEC, new BytesSerializer());
+    }
+
+    @Test
+    public void testMessagesWrittenBeforeFlushShareOneFrame() {
+        EmbeddedChannel encoder = new EmbeddedChannel(new ProtocolV2Encoder(1 << 20));
+        ChannelFuture first = encoder.write(request(1, body(10, 'a')));
+        ChannelFuture heartbeat = encoder.write(heartbeat(2));
+        ChannelFuture third = encoder.write(request(3, body(300, 'c')));
+        Assertions.assertNull(encoder.readOutbound());
+        encoder.flush();
+
+        ByteBuf frame = encoder.readOutbound();
+        Assertions.assertNull(encoder.readOutbound());
+        Assertions.assertTrue(first.isSuccess());
+        Assertions.assertTrue(heartbeat.isSuccess());
+        Assertions.assertTrue(third.isSuccess());
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new ProtocolV2Decoder());
+        decoder.writeInbound(frame);
+        assertRequest(decoder.readInbound(), 1, body(10, 'a'));
+        RpcMessage decodedHeartbeat = decoder.readInbound();
+        Assertions.assertEquals(2, decodedHeartbeat.getId());
+        Assertions.assertEquals(ProtocolConstants.MSGTYPE_HEARTBEAT_REQUEST, decodedHeartbeat.getMessageType());
+        Assertions.assertSame(HeartbeatMessage.PING, decodedHeartbeat.getBody());
+        assertRequest(decoder.readInbound(), 3, body(300, 'c'));
+        Assertions.assertNull(decoder.readInbound());
+
+        Assertions.assertFalse(encoder.finish());
+        Assertions.assertFalse(decoder.finish());
+    }
+
+    @Test
+    public void testFrameIsWrittenOnceFull() {
+        EmbeddedChannel encoder = new EmbeddedChannel(new ProtocolV2Encoder(64));
+        encoder.write(request(1, body(100, 'a')));
+        encoder.write(request(2, body(100, 'b')));
+        encoder.flush();
+
+        ByteBuf firstFrame = encoder.readOutbound();
+        ByteBuf secondFrame = encoder.readOutbound();
+        Assertions.assertNotNull(firstFrame);
+        Assertions.assertNotNull(secondFrame);
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new ProtocolV2Decoder());
+        decoder.writeInbound(firstFrame, secondFrame);
+        assertRequest(decoder.readInbound(), 1, body(100, 'a'));
+        assertRequest(decoder.readInbound(), 2, body(100, 'b'));
+        Assertions.assertFalse(encoder.finish());
+        Assertions.assertFalse(decoder.finish());
+    }
+
+    @Test
+    public void testBodyLargerThanEstimate() {
+        byte[] body = body(20000, 'x');
+        EmbeddedChannel encoder = new EmbeddedChannel(new ProtocolV2Encoder(1 << 20));
+        encoder.writeAndFlush(request(Integer.MAX_VALUE, body));
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new ProtocolV2Decoder());
+        decoder.writeInbound((ByteBuf) encoder.readOutbound());
+        assertRequest(decoder.readInbound(), Integer.MAX_VALUE, body);
+        Assertions.assertFalse(encoder.finish());
+        Assertions.assertFalse(decoder.finish());
+    }
+
+    @Test
+    public void testFrameSplitAcrossReads() {
+        EmbeddedChannel encoder = new EmbeddedChannel(new ProtocolV2Encoder(1 << 20));
+        encoder.write(request(1, body(10, 'a')));
+        encoder.write(request(2, body(10, 'b')));
+        encoder.flush();
+        ByteBuf frame = encoder.readOutbound();
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new ProtocolV2Decoder());
+        while (frame.readableBytes() > 1) {
+            decoder.writeInbound(frame.readRetainedSlice(1));
+            Assertions.assertNull(decoder.readInbound());
+        }
+        decoder.writeInbound(frame);
+        assertRequest(decoder.readInbound(), 1, body(10, 'a'));
+        assertRequest(decoder.readInbound(), 2, body(10, 'b'));
+        Assertions.assertFalse(encoder.finish());
+        Assertions.assertFalse(decoder.finish());
+    }
+
+    @Test
+    public void testCompactHeadMapInOneFrame() {
+        EmbeddedChannel encoder = new EmbeddedChannel(new ProtocolV2Encoder(1 << 20));
+        encoder.attr(HeadMapSerializer.COMPACT_OUTBOUND).set(Boolean.TRUE);
+        for (int i = 1; i <= 3; i++) {
+            RpcMessage request = request(i, body(10, 'a'));
+            request.putHead("tenant", "tenant-a");
+            encoder.write(request);
+        }
+        encoder.flush();
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new ProtocolV2Decoder());
+        decoder.writeInbound((ByteBuf) encoder.readOutbound());
+        for (int i = 1; i <= 3; i++) {
+            RpcMessage decoded = decoder.readInbound();
+            Assertions.assertEquals(i, decoded.getId());
+            Assertions.assertEquals("tenant-a", decoded.getHead("tenant"));
+        }
+        Assertions.assertFalse(encoder.finish());
+        Assertions.assertFalse(decoder.finish());
+    }
+
+    private static RpcMessage request(int id, byte[] body) {
+        RpcMessage rpcMessage = new RpcMessage();
+        rpcMessage.setId(id);
+        rpcMessage.setMessageType(ProtocolConstants.MSGTYPE_RESQUEST_SYNC);
+        rpcMessage.setCodec(BYTES_CODEC);
+        rpcMessage.setCompressor(CompressorType.NONE.getCode());
+        rpcMessage.setBody(body);
+        return rpcMessage;
+    }
+
+    private static RpcMessage heartbeat(int id) {
+        RpcMessage rpcMessage = new RpcMessage();
+        rpcMessage.setId(id);
+        rpcMessage.setMessageType(ProtocolConstants.MSGTYPE_HEARTBEAT_REQUEST);
+        rpcMessage.setCodec(BYTES_CODEC);
+        rpcMessage.setBody(HeartbeatMessage.PING);
+        return rpcMessage;
+    }
+
+    private static void assertRequest(RpcMessage decoded, int id, byte[] body) {
+        Assertions.assertNotNull(decoded);
+        Assertions.assertEquals(id, decoded.getId());
+        Assertions.assertEquals(ProtocolConstants.MSGTYPE_RESQUEST_SYNC, decoded.getMessageType());
+        Assertions.assertArrayEquals(body, (byte[]) decoded.getBody());
+    }
+
+    private static byte[] body(int length, char fill) {
+        byte[] body = new byte[length];
+        Arrays.fill(body, (byte) fill);
+        return body;
+    }
+
+    /**
+     * Writes a byte[] body as is.
+     */
+    private static final class BytesSerializer implements Serializer {
+
+        @Override
+        public <T> byte[] serialize(T t) {
+            return (byte[]) t;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T deserialize(byte[] bytes) {
+            return (T) bytes;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.netty.v2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.CorruptedFrameException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * the type Varints test
+ */
+public class VarintsTest {
+
+    private static final int[] BOUNDARIES = {0, 1, 127, 128, 16383, 16384, 2097151, 2097152, 268435455, 268435456,
+        Integer.MAX_VALUE, -1};
+
+    private static final int[] SIZES = {1, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 5};
+
+    @Test
+    public void testSize() {
+        for (int i = 0; i < BOUNDARIES.length; i++) {
+            Assertions.assertEquals(SIZES[i], Varints.size(BOUNDARIES[i]), "size of " + BOUNDARIES[i]);
+        }
+    }
+
+    @Test
+    public void testWriteAndRead() {
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            for (int value : BOUNDARIES) {
+                int start = buf.writerIndex();
+                Varints.write(buf, value);
+                Assertions.assertEquals(Varints.size(value), buf.writerIndex() - start);
+                Assertions.assertEquals(Varints.size(value), Varints.peekSize(buf, start));
+            }
+            for (int value : BOUNDARIES) {
+                Assertions.assertEquals(value, Varints.read(buf));
+            }
+            Assertions.assertFalse(buf.isReadable());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testSetPadded() {
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            buf.writeZero(3);
+            Varints.setPadded(buf, 0, 3, 5);
+            Assertions.assertEquals(3, Varints.peekSize(buf, 0));
+            Assertions.assertEquals(5, Varints.read(buf));
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testFillLengthWithinReservation() {
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            buf.writeZero(2);
+            buf.writeBytes(new byte[100]);
+            Assertions.assertEquals(100, Varints.fillLength(buf, 0, 2));
+            Assertions.assertEquals(102, buf.readableBytes());
+            Assertions.assertEquals(100, Varints.read(buf));
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testFillLengthMovesTheBytesAfterTheField() {
+        byte[] payload = new byte[300];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            buf.writeByte(0x55);
+            buf.writeZero(1);
+            buf.writeBytes(payload);
+            Assertions.assertEquals(payload.length, Varints.fillLength(buf, 1, 1));
+            Assertions.assertEquals(1 + 2 + payload.length, buf.readableBytes());
+
+            Assertions.assertEquals(0x55, buf.readByte());
+            Assertions.assertEquals(payload.length, Varints.read(buf));
+            byte[] moved = new byte[payload.length];
+            buf.readBytes(moved);
+            Assertions.assertArrayEquals(payload, moved);
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testPeekIncomplete() {
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            buf.writeByte(0x80).writeByte(0x80);
+            Assertions.assertEquals(-1, Varints.peekSize(buf, 0));
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testMalformed() {
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            buf.writeBytes(new byte[] {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0});
+            Assertions.assertThrows(CorruptedFrameException.class, () -> Varints.peekSize(buf, 0));
+            Assertions.assertThrows(CorruptedFrameException.class, () -> Varints.read(buf));
+        } finally {
+            buf.release();
+        }
+    }
+}
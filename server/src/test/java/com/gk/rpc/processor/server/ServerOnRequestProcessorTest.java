@@ -0,0 +1,38 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.processor.server;
+
+import com.gk.rpc.exception.TransactionExceptionCode;
+import com.gk.rpc.protocol.GlobalBeginResponse;
+import com.gk.rpc.protocol.MessageType;
+import com.gk.rpc.protocol.ResultCode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * the type Server on request processor test, covering how shed requests are answered
+ */
+public class ServerOnRequestProcessorTest {
+
+    @Test
+    public void testRejectionIsRetryableFailure() {
+        GlobalBeginResponse rejection = ServerOnRequestProcessor.newRejection();
+        Assertions.assertEquals(MessageType.TYPE_GLOBAL_BEGIN_RESULT, rejection.getTypeCode());
+        Assertions.assertEquals(ResultCode.Failed, rejection.getResultCode());
+        Assertions.assertEquals(TransactionExceptionCode.TooManyRequests, rejection.getTransactionExceptionCode());
+        Assertions.assertNull(rejection.getXid());
+    }
+}
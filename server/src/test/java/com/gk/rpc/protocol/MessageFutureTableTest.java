@@ -0,0 +1,142 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.protocol;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the type Message future table test
+ */
+public class MessageFutureTableTest {
+
+    @Test
+    public void testPutGetRemove() {
+        MessageFutureTable table = new MessageFutureTable();
+        MessageFuture future = new MessageFuture();
+
+        table.put(1, future);
+        Assertions.assertSame(future, table.get(1));
+        Assertions.assertEquals(1, table.size());
+        Assertions.assertNull(table.get(2));
+        Assertions.assertNull(table.remove(2));
+
+        Assertions.assertSame(future, table.remove(1));
+        Assertions.assertNull(table.get(1));
+        Assertions.assertNull(table.remove(1));
+        Assertions.assertEquals(0, table.size());
+    }
+
+    @Test
+    public void testPutReplacesSameId() {
+        MessageFutureTable table = new MessageFutureTable(4);
+        MessageFuture first = new MessageFuture();
+        MessageFuture second = new MessageFuture();
+
+        table.put(5, first);
+        table.put(1, new MessageFuture());
+        table.put(5, second);
+        Assertions.assertSame(second, table.get(5));
+        Assertions.assertEquals(2, table.size());
+    }
+
+    @Test
+    public void testChainInOneBucket() {
+        MessageFutureTable table = new MessageFutureTable(4);
+        MessageFuture[] futures = new MessageFuture[4];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = new MessageFuture();
+            // 1, 5, 9 and 13 share bucket 1
+            table.put(1 + 4 * i, futures[i]);
+        }
+
+        Assertions.assertSame(futures[1], table.remove(5));
+        Assertions.assertSame(futures[3], table.remove(13));
+        Assertions.assertSame(futures[0], table.get(1));
+        Assertions.assertSame(futures[2], table.get(9));
+        Assertions.assertNull(table.get(5));
+        Assertions.assertEquals(2, table.size());
+    }
+
+    @Test
+    public void testNegativeId() {
+        MessageFutureTable table = new MessageFutureTable(4);
+        MessageFuture future = new MessageFuture();
+        table.put(Integer.MIN_VALUE, future);
+        Assertions.assertSame(future, table.get(Integer.MIN_VALUE));
+        Assertions.assertSame(future, table.remove(Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void testDrain() {
+        MessageFutureTable table = new MessageFutureTable(4);
+        for (int i = 0; i < 10; i++) {
+            table.put(i, new MessageFuture());
+        }
+        List<MessageFuture> drained = new ArrayList<>();
+        table.drain(drained::add);
+
+        Assertions.assertEquals(10, drained.size());
+        Assertions.assertEquals(0, table.size());
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertNull(table.get(i));
+        }
+    }
+
+    @Test
+    public void testConcurrentPutAndRemoveInSharedBuckets() throws Exception {
+        // few buckets, so every thread works on chains shared with the others
+        MessageFutureTable table = new MessageFutureTable(8);
+        int threads = 8;
+        int idsPerThread = 20000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int misses = 0;
+                    for (int i = 0; i < idsPerThread; i++) {
+                        int id = i * threads + offset;
+                        MessageFuture future = new MessageFuture();
+                        table.put(id, future);
+                        if (table.get(id) != future || table.remove(id) != future) {
+                            misses++;
+                        }
+                    }
+                    return misses;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> result : results) {
+                Assertions.assertEquals(0, result.get(30, TimeUnit.SECONDS).intValue());
+            }
+            Assertions.assertEquals(0, table.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.protocol;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * the type Message future test
+ */
+public class MessageFutureTest {
+
+    @Test
+    public void testStageCompletesWithResult() throws Exception {
+        MessageFuture future = new MessageFuture();
+        future.setResultMessage("ok");
+        Assertions.assertEquals("ok", future.toCompletionStage().toCompletableFuture().get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStageFailsWithTheThrowableItself() throws Exception {
+        MessageFuture future = new MessageFuture();
+        CompletableFuture<Throwable> before = future.toCompletionStage().handle((result, e) -> e)
+            .toCompletableFuture();
+        TimeoutException timeout = new TimeoutException("no response");
+        future.setResultMessage(timeout);
+        CompletableFuture<Throwable> after = future.toCompletionStage().handle((result, e) -> e)
+            .toCompletableFuture();
+
+        Assertions.assertSame(timeout, before.get(1, TimeUnit.SECONDS));
+        Assertions.assertSame(timeout, after.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testGetRethrowsRuntimeException() {
+        MessageFuture future = new MessageFuture();
+        IllegalStateException failure = new IllegalStateException("failed");
+        future.setResultMessage(failure);
+        Assertions.assertSame(failure, Assertions.assertThrows(IllegalStateException.class,
+            () -> future.get(1, TimeUnit.SECONDS)));
+    }
+}
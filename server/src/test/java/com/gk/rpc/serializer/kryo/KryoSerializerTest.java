@@ -0,0 +1,166 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.serializer.kryo;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Output;
+import com.gk.rpc.exception.TransactionExceptionCode;
+import com.gk.rpc.netty.MergedWarpMessage;
+import com.gk.rpc.protocol.AbstractResultMessage;
+import com.gk.rpc.protocol.BatchResultMessage;
+import com.gk.rpc.protocol.GlobalBeginResponse;
+import com.gk.rpc.protocol.MergeResultMessage;
+import com.gk.rpc.protocol.RegisterRMRequest;
+import com.gk.rpc.protocol.RegisterRMResponse;
+import com.gk.rpc.protocol.RegisterTMRequest;
+import com.gk.rpc.protocol.RegisterTMResponse;
+import com.gk.rpc.protocol.ResultCode;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * the type Kryo serializer test
+ */
+public class KryoSerializerTest {
+
+    private final KryoSerializer serializer = new KryoSerializer();
+
+    @Test
+    public void testRegisterRMRequest() {
+        RegisterRMRequest request = new RegisterRMRequest("app", "my_test_tx_group");
+        request.setResourceIds("jdbc:mysql://127.0.0.1:3306/seata");
+
+        RegisterRMRequest decoded = roundTrip(request);
+        Assertions.assertEquals(request.getApplicationId(), decoded.getApplicationId());
+        Assertions.assertEquals(request.getTransactionServiceGroup(), decoded.getTransactionServiceGroup());
+        Assertions.assertEquals(request.getResourceIds(), decoded.getResourceIds());
+    }
+
+    @Test
+    public void testMergedWarpMessage() {
+        MergedWarpMessage message = new MergedWarpMessage();
+        message.msgs.add(new RegisterRMRequest("app", "group"));
+        message.msgs.add(new RegisterTMRequest("app", "group"));
+        message.msgIds.add(1);
+        message.msgIds.add(2);
+
+        MergedWarpMessage decoded = roundTrip(message);
+        Assertions.assertEquals(2, decoded.msgs.size());
+        Assertions.assertTrue(decoded.msgs.get(1) instanceof RegisterTMRequest);
+        Assertions.assertEquals(message.msgIds, decoded.msgIds);
+    }
+
+    @Test
+    public void testMergeResultMessage() {
+        RegisterRMResponse failed = new RegisterRMResponse(false);
+        failed.setResultCode(ResultCode.Failed);
+        failed.setMsg("failed");
+        MergeResultMessage message = new MergeResultMessage();
+        message.setMsgs(new AbstractResultMessage[] {new RegisterTMResponse(true), failed});
+
+        MergeResultMessage decoded = roundTrip(message);
+        Assertions.assertEquals(2, decoded.getMsgs().length);
+        Assertions.assertEquals(ResultCode.Failed, decoded.getMsgs()[1].getResultCode());
+        Assertions.assertEquals("failed", decoded.getMsgs()[1].getMsg());
+    }
+
+    @Test
+    public void testBatchResultMessage() {
+        BatchResultMessage message = new BatchResultMessage();
+        // the aggregator fills ArrayLists, the only list type registered
+        message.setResultMessages(new ArrayList<>(Arrays.<AbstractResultMessage>asList(new RegisterRMResponse(true),
+            new RegisterTMResponse(false))));
+        message.setMsgIds(new ArrayList<>(Arrays.asList(3, 4)));
+
+        BatchResultMessage decoded = roundTrip(message);
+        Assertions.assertEquals(message.getMsgIds(), decoded.getMsgIds());
+        Assertions.assertFalse(((RegisterTMResponse) decoded.getResultMessages().get(1)).isIdentified());
+    }
+
+    @Test
+    public void testUnregisteredClassIsNotSerialized() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> serializer.serialize(new File("/")));
+    }
+
+    @Test
+    public void testGlobalBeginResponse() {
+        GlobalBeginResponse response = new GlobalBeginResponse();
+        response.setResultCode(ResultCode.Failed);
+        response.setTransactionExceptionCode(TransactionExceptionCode.TooManyRequests);
+        response.setMsg("overloaded");
+
+        GlobalBeginResponse decoded = roundTrip(response);
+        Assertions.assertEquals(ResultCode.Failed, decoded.getResultCode());
+        Assertions.assertEquals(TransactionExceptionCode.TooManyRequests, decoded.getTransactionExceptionCode());
+        Assertions.assertEquals("overloaded", decoded.getMsg());
+        Assertions.assertNull(decoded.getXid());
+    }
+
+    @Test
+    public void testRegisteredJdkTypes() {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        SimpleDateFormat decodedFormat = roundTrip(format);
+        Assertions.assertEquals(format.toPattern(), decodedFormat.toPattern());
+        Assertions.assertEquals("UTC", decodedFormat.getTimeZone().getID());
+
+        BitSet bitSet = new BitSet();
+        bitSet.set(3);
+        bitSet.set(130);
+        Assertions.assertEquals(bitSet, roundTrip(bitSet));
+
+        GregorianCalendar calendar = new GregorianCalendar(2020, Calendar.MARCH, 1);
+        Assertions.assertEquals(calendar.getTimeInMillis(), roundTrip(calendar).getTimeInMillis());
+    }
+
+    @Test
+    public void testUnregisteredClassIdIsRejected() {
+        Output output = new Output(16);
+        // class id 1000 + 2, as written by writeClassAndObject for an id nobody registered
+        output.writeVarInt(1002, true);
+        byte[] bytes = output.toBytes();
+        Assertions.assertThrows(KryoException.class, () -> serializer.deserialize(bytes));
+    }
+
+    /**
+     * Round trip through the byte[] form and through a direct ByteBuf, which is decoded as a stream.
+     */
+    private <T> T roundTrip(T message) {
+        T decoded = serializer.deserialize(serializer.serialize(message));
+        Assertions.assertEquals(message.getClass(), decoded.getClass());
+        ByteBuf buf = Unpooled.directBuffer();
+        try {
+            serializer.serialize(message, buf);
+            T fromBuf = serializer.deserialize(buf);
+            Assertions.assertEquals(message.getClass(), fromBuf.getClass());
+            Assertions.assertEquals(0, buf.readableBytes());
+        } finally {
+            buf.release();
+        }
+        return decoded;
+    }
+}
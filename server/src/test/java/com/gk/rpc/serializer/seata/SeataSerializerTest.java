@@ -0,0 +1,235 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.serializer.seata;
+
+import com.gk.rpc.exception.TransactionExceptionCode;
+import com.gk.rpc.netty.MergedWarpMessage;
+import com.gk.rpc.protocol.AbstractResultMessage;
+import com.gk.rpc.protocol.BatchResultMessage;
+import com.gk.rpc.protocol.GlobalBeginResponse;
+import com.gk.rpc.protocol.HeartbeatMessage;
+import com.gk.rpc.protocol.MergeResultMessage;
+import com.gk.rpc.protocol.RegisterRMRequest;
+import com.gk.rpc.protocol.RegisterRMResponse;
+import com.gk.rpc.protocol.RegisterTMRequest;
+import com.gk.rpc.protocol.RegisterTMResponse;
+import com.gk.rpc.protocol.ResultCode;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+/**
+ * Round-trip tests of the hand-written SEATA message codecs.
+ */
+public class SeataSerializerTest {
+
+    private final SeataSerializer serializer = new SeataSerializer();
+
+    @Test
+    public void testRegisterRMRequest() {
+        RegisterRMRequest request = new RegisterRMRequest("app", "my_test_tx_group");
+        request.setVersion("1.4.1");
+        request.setResourceIds("jdbc:mysql://127.0.0.1:3306/seata,jdbc:mysql://127.0.0.1:3306/库存");
+        request.setExtraData("key=value\n");
+
+        RegisterRMRequest decoded = roundTrip(request);
+        Assertions.assertEquals(request.getVersion(), decoded.getVersion());
+        Assertions.assertEquals(request.getApplicationId(), decoded.getApplicationId());
+        Assertions.assertEquals(request.getTransactionServiceGroup(), decoded.getTransactionServiceGroup());
+        Assertions.assertEquals(request.getResourceIds(), decoded.getResourceIds());
+        Assertions.assertEquals(request.getExtraData(), decoded.getExtraData());
+    }
+
+    @Test
+    public void testRegisterRMRequestWithNullAndEmptyFields() {
+        RegisterRMRequest request = new RegisterRMRequest();
+        request.setVersion("");
+        request.setApplicationId(null);
+        request.setTransactionServiceGroup("");
+        request.setResourceIds(null);
+        request.setExtraData(null);
+
+        RegisterRMRequest decoded = roundTrip(request);
+        Assertions.assertEquals("", decoded.getVersion());
+        Assertions.assertNull(decoded.getApplicationId());
+        Assertions.assertEquals("", decoded.getTransactionServiceGroup());
+        Assertions.assertNull(decoded.getResourceIds());
+        Assertions.assertNull(decoded.getExtraData());
+    }
+
+    @Test
+    public void testRegisterTMRequest() {
+        RegisterTMRequest request = new RegisterTMRequest("app", "my_test_tx_group", "extra");
+        request.setVersion("1.4.1");
+
+        RegisterTMRequest decoded = roundTrip(request);
+        Assertions.assertEquals(request.getVersion(), decoded.getVersion());
+        Assertions.assertEquals(request.getApplicationId(), decoded.getApplicationId());
+        Assertions.assertEquals(request.getTransactionServiceGroup(), decoded.getTransactionServiceGroup());
+        Assertions.assertEquals(request.getExtraData(), decoded.getExtraData());
+    }
+
+    @Test
+    public void testRegisterRMResponse() {
+        RegisterRMResponse response = new RegisterRMResponse(false);
+        response.setResultCode(ResultCode.Failed);
+        response.setMsg("auth failed");
+        response.setVersion("1.4.1");
+        response.setExtraData("extra");
+
+        RegisterRMResponse decoded = roundTrip(response);
+        Assertions.assertFalse(decoded.isIdentified());
+        Assertions.assertEquals(ResultCode.Failed, decoded.getResultCode());
+        Assertions.assertEquals(response.getMsg(), decoded.getMsg());
+        Assertions.assertEquals(response.getVersion(), decoded.getVersion());
+        Assertions.assertEquals(response.getExtraData(), decoded.getExtraData());
+    }
+
+    @Test
+    public void testRegisterTMResponseWithoutResultCode() {
+        RegisterTMResponse response = new RegisterTMResponse(true);
+
+        RegisterTMResponse decoded = roundTrip(response);
+        Assertions.assertTrue(decoded.isIdentified());
+        Assertions.assertNull(decoded.getResultCode());
+        Assertions.assertNull(decoded.getMsg());
+    }
+
+    @Test
+    public void testGlobalBeginResponse() {
+        GlobalBeginResponse response = new GlobalBeginResponse();
+        response.setResultCode(ResultCode.Failed);
+        response.setTransactionExceptionCode(TransactionExceptionCode.TooManyRequests);
+        response.setMsg("overloaded");
+
+        GlobalBeginResponse decoded = roundTrip(response);
+        Assertions.assertEquals(ResultCode.Failed, decoded.getResultCode());
+        Assertions.assertEquals(TransactionExceptionCode.TooManyRequests, decoded.getTransactionExceptionCode());
+        Assertions.assertEquals("overloaded", decoded.getMsg());
+        Assertions.assertNull(decoded.getXid());
+    }
+
+    @Test
+    public void testHeartbeatMessage() {
+        Assertions.assertSame(HeartbeatMessage.PING, roundTrip(HeartbeatMessage.PING));
+        Assertions.assertSame(HeartbeatMessage.PONG, roundTrip(HeartbeatMessage.PONG));
+    }
+
+    @Test
+    public void testMergedWarpMessage() {
+        MergedWarpMessage message = new MergedWarpMessage();
+        RegisterRMRequest rmRequest = new RegisterRMRequest("app", "group");
+        rmRequest.setResourceIds("resource");
+        message.msgs.add(rmRequest);
+        message.msgs.add(new RegisterTMRequest("app", "group"));
+
+        MergedWarpMessage decoded = roundTrip(message);
+        Assertions.assertEquals(2, decoded.msgs.size());
+        Assertions.assertEquals("resource", ((RegisterRMRequest) decoded.msgs.get(0)).getResourceIds());
+        Assertions.assertEquals("group", ((RegisterTMRequest) decoded.msgs.get(1)).getTransactionServiceGroup());
+    }
+
+    @Test
+    public void testMergeResultMessage() {
+        RegisterRMResponse failed = new RegisterRMResponse(false);
+        failed.setResultCode(ResultCode.Failed);
+        MergeResultMessage message = new MergeResultMessage();
+        message.setMsgs(new AbstractResultMessage[] {new RegisterTMResponse(true), failed});
+
+        MergeResultMessage decoded = roundTrip(message);
+        Assertions.assertEquals(2, decoded.getMsgs().length);
+        Assertions.assertTrue(decoded.getMsgs()[0] instanceof RegisterTMResponse);
+        Assertions.assertEquals(ResultCode.Failed, decoded.getMsgs()[1].getResultCode());
+    }
+
+    @Test
+    public void testBatchResultMessage() {
+        RegisterRMResponse first = new RegisterRMResponse(true);
+        first.setResultCode(ResultCode.Success);
+        RegisterTMResponse second = new RegisterTMResponse(false);
+        second.setMsg("failed");
+        BatchResultMessage message = new BatchResultMessage();
+        message.setResultMessages(Arrays.<AbstractResultMessage>asList(first, second));
+        message.setMsgIds(Arrays.asList(7, Integer.MAX_VALUE));
+
+        BatchResultMessage decoded = roundTrip(message);
+        Assertions.assertEquals(message.getMsgIds(), decoded.getMsgIds());
+        Assertions.assertEquals(2, decoded.getResultMessages().size());
+        Assertions.assertEquals(ResultCode.Success, decoded.getResultMessages().get(0).getResultCode());
+        Assertions.assertTrue(decoded.getResultMessages().get(1) instanceof RegisterTMResponse);
+        Assertions.assertEquals("failed", decoded.getResultMessages().get(1).getMsg());
+    }
+
+    @Test
+    public void testEmptyBatchResultMessage() {
+        BatchResultMessage decoded = roundTrip(new BatchResultMessage());
+        Assertions.assertTrue(decoded.getResultMessages().isEmpty());
+        Assertions.assertTrue(decoded.getMsgIds().isEmpty());
+    }
+
+    @Test
+    public void testDirectBufferWithLongStrings() {
+        StringBuilder resourceIds = new StringBuilder();
+        for (int i = 0; i < 64; i++) {
+            resourceIds.append("jdbc:mysql://127.0.0.1:3306/库存").append(i).append(',');
+        }
+        RegisterRMRequest request = new RegisterRMRequest("app", "my_test_tx_group");
+        request.setResourceIds(resourceIds.toString());
+
+        ByteBuf out = Unpooled.directBuffer();
+        try {
+            // two messages in one buffer, so the second is read at a non-zero reader index
+            serializer.serialize(request, out);
+            serializer.serialize(request, out);
+            for (int i = 0; i < 2; i++) {
+                RegisterRMRequest decoded = serializer.deserialize(out.readSlice(out.readableBytes() / (2 - i)));
+                Assertions.assertEquals(request.getApplicationId(), decoded.getApplicationId());
+                Assertions.assertEquals(request.getResourceIds(), decoded.getResourceIds());
+            }
+        } finally {
+            out.release();
+        }
+    }
+
+    @Test
+    public void testUnsupportedMessage() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> serializer.serialize("not a message"));
+    }
+
+    /**
+     * Round trip through both the byte[] and the ByteBuf forms, checking they agree and that the
+     * decoder consumes exactly the encoded bytes.
+     */
+    private <T> T roundTrip(T message) {
+        byte[] bytes = serializer.serialize(message);
+        ByteBuf out = Unpooled.buffer();
+        try {
+            serializer.serialize(message, out);
+            byte[] written = new byte[out.readableBytes()];
+            out.getBytes(out.readerIndex(), written);
+            Assertions.assertArrayEquals(bytes, written);
+            T decoded = serializer.deserialize(out);
+            Assertions.assertEquals(0, out.readableBytes());
+            Assertions.assertEquals(message.getClass(), decoded.getClass());
+            return serializer.deserialize(bytes);
+        } finally {
+            out.release();
+        }
+    }
+}
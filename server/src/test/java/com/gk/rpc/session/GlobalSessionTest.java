@@ -0,0 +1,92 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.gk.rpc.session;
+
+import com.gk.rpc.model.BranchType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the type Global session test
+ */
+public class GlobalSessionTest {
+
+    @Test
+    public void testGetBranchSessionsReturnsCopy() {
+        GlobalSession globalSession = new GlobalSession();
+        globalSession.add(branch(1L, BranchType.AT));
+
+        globalSession.getBranchSessions().clear();
+        Assertions.assertTrue(globalSession.hasBranch());
+        Assertions.assertEquals(1, globalSession.getBranchSessions().size());
+        Assertions.assertNotNull(globalSession.getBranch(1L));
+    }
+
+    @Test
+    public void testBranchTypeQueries() {
+        GlobalSession globalSession = new GlobalSession();
+        Assertions.assertFalse(globalSession.hasBranch());
+        Assertions.assertTrue(globalSession.canBeCommittedAsync());
+
+        globalSession.add(branch(1L, BranchType.SAGA));
+        Assertions.assertTrue(globalSession.isSaga());
+        Assertions.assertFalse(globalSession.hasATBranch());
+        Assertions.assertFalse(globalSession.canBeCommittedAsync());
+
+        globalSession.add(branch(2L, BranchType.AT));
+        Assertions.assertTrue(globalSession.hasATBranch());
+    }
+
+    @Test
+    public void testQueriesWhileBranchesChange() throws Exception {
+        GlobalSession globalSession = new GlobalSession();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (long i = 0; i < 20000; i++) {
+                    BranchSession branchSession = branch(i, BranchType.TCC);
+                    globalSession.add(branchSession);
+                    if (i % 2 == 0) {
+                        globalSession.remove(branchSession);
+                    }
+                }
+            });
+            // iterating an unguarded list here would fail with a ConcurrentModificationException
+            while (!writer.isDone()) {
+                Assertions.assertFalse(globalSession.hasATBranch());
+                globalSession.canBeCommittedAsync();
+                globalSession.isSaga();
+                globalSession.getBranchSessions();
+            }
+            writer.get(30, TimeUnit.SECONDS);
+            Assertions.assertEquals(10000, globalSession.getBranchSessions().size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static BranchSession branch(long branchId, BranchType branchType) {
+        BranchSession branchSession = new BranchSession();
+        branchSession.setBranchId(branchId);
+        branchSession.setBranchType(branchType);
+        return branchSession;
+    }
+}